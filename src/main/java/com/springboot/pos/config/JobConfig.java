@@ -0,0 +1,57 @@
+package com.springboot.pos.config;
+
+import com.springboot.pos.security.TokenRevocationService;
+import com.springboot.pos.service.InventoryLedger;
+import com.springboot.pos.service.MpesaCallbackInbox;
+import com.springboot.pos.service.PaymentCompletionRegistry;
+import com.springboot.pos.service.SaleIdempotencyService;
+import com.springboot.pos.service.cache.CacheInvalidationBus;
+import com.springboot.pos.service.job.ClusterJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Retention purges and inventory snapshots. They only need to run once per
+ * cluster, so they are registered as {@link ClusterJob}s rather than
+ * {@code @Scheduled}.
+ */
+@Configuration
+public class JobConfig {
+
+    @Bean
+    public ClusterJob idempotencyPurgeJob(SaleIdempotencyService saleIdempotencyService,
+                                          @Value("${idempotency.purge-ms:3600000}") long intervalMs) {
+        return ClusterJob.of("idempotency-purge", intervalMs, saleIdempotencyService::purgeExpiredRecords);
+    }
+
+    @Bean
+    public ClusterJob cacheInvalidationPurgeJob(CacheInvalidationBus cacheInvalidationBus,
+                                                @Value("${cache.invalidation.purge-ms:600000}") long intervalMs) {
+        return ClusterJob.of("cache-invalidation-purge", intervalMs, cacheInvalidationBus::purgeExpiredRows);
+    }
+
+    @Bean
+    public ClusterJob mpesaCallbackPurgeJob(MpesaCallbackInbox mpesaCallbackInbox,
+                                            @Value("${mpesa.callback.purge-ms:3600000}") long intervalMs) {
+        return ClusterJob.of("mpesa-callback-purge", intervalMs, mpesaCallbackInbox::purgeProcessed);
+    }
+
+    @Bean
+    public ClusterJob paymentNotificationPurgeJob(PaymentCompletionRegistry paymentCompletionRegistry,
+                                                  @Value("${payment.completion.purge-ms:600000}") long intervalMs) {
+        return ClusterJob.of("payment-notification-purge", intervalMs, paymentCompletionRegistry::purgeExpiredNotifications);
+    }
+
+    @Bean
+    public ClusterJob revokedTokenPurgeJob(TokenRevocationService tokenRevocationService,
+                                           @Value("${jwt.revocation.purge-ms:3600000}") long intervalMs) {
+        return ClusterJob.of("revoked-token-purge", intervalMs, tokenRevocationService::purgeExpired);
+    }
+
+    @Bean
+    public ClusterJob inventorySnapshotJob(InventoryLedger inventoryLedger,
+                                           @Value("${stock.ledger.snapshot-ms:3600000}") long intervalMs) {
+        return ClusterJob.of("inventory-snapshot", intervalMs, inventoryLedger::takeSnapshots);
+    }
+}
@@ -8,26 +8,34 @@ import com.springboot.pos.payload.SignUpDto;
 import com.springboot.pos.payload.UserDto;
 import com.springboot.pos.repository.RoleRepository;
 import com.springboot.pos.repository.UserRepository;
+import com.springboot.pos.security.LoginExecutor;
+import com.springboot.pos.security.TokenRevocationService;
 import com.springboot.pos.service.NotificationService;
 import com.springboot.pos.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -36,45 +44,63 @@ public class AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
-    private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final NotificationService notificationService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginExecutor loginExecutor;
 
-    public AuthController(AuthenticationManager authenticationManager,
-                          UserRepository userRepository,
+    public AuthController(UserRepository userRepository,
                           RoleRepository roleRepository,
                           PasswordEncoder passwordEncoder,
                           JwtUtil jwtUtil,
-                          NotificationService notificationService) {
-        this.authenticationManager = authenticationManager;
+                          NotificationService notificationService,
+                          TokenRevocationService tokenRevocationService,
+                          LoginExecutor loginExecutor) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.notificationService = notificationService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.loginExecutor = loginExecutor;
     }
 
     @PostMapping("/sign_in")
-    public ResponseEntity<?> authenticate(@Valid @RequestBody LoginDto loginDto) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginDto.getUsernameOrEmail(),
-                            loginDto.getPassword()
-                    )
-            );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            String jwt = jwtUtil.generateToken(authentication);
-            logger.info("User {} signed in successfully", loginDto.getUsernameOrEmail());
-            return ResponseEntity.ok(new JwtResponse(jwt));
-        } catch (BadCredentialsException | UsernameNotFoundException e) {
-            logger.warn("Failed sign-in attempt for {}: {}", loginDto.getUsernameOrEmail(), e.getMessage());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid credentials or unverified email");
-        }
+    public CompletableFuture<ResponseEntity<?>> authenticate(@Valid @RequestBody LoginDto loginDto,
+                                                             HttpServletRequest request) {
+        // BCrypt runs on the login pool; this request thread is released while it does
+        return loginExecutor.authenticate(loginDto.getUsernameOrEmail(), loginDto.getPassword(), request.getRemoteAddr())
+                .<ResponseEntity<?>>thenApply(authentication -> {
+                    String jwt = jwtUtil.generateToken(authentication);
+                    logger.info("User {} signed in successfully", loginDto.getUsernameOrEmail());
+                    return ResponseEntity.ok(new JwtResponse(jwt));
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof LoginExecutor.ThrottledException throttled) {
+                        logger.warn("Throttled sign-in attempt for {}: {}", loginDto.getUsernameOrEmail(), throttled.getMessage());
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(throttled.getRetryAfterSeconds()))
+                                .body(throttled.getMessage());
+                    }
+                    if (cause instanceof BadCredentialsException || cause instanceof UsernameNotFoundException) {
+                        logger.warn("Failed sign-in attempt for {}: {}", loginDto.getUsernameOrEmail(), cause.getMessage());
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body("Invalid credentials or unverified email");
+                    }
+                    if (cause instanceof TimeoutException) {
+                        logger.warn("Sign-in for {} timed out in the login queue", loginDto.getUsernameOrEmail());
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body("Sign-in is busy, try again shortly");
+                    }
+                    logger.error("Sign-in failed for {}: {}", loginDto.getUsernameOrEmail(), cause.getMessage());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body("Invalid credentials or unverified email");
+                });
     }
 
     @PostMapping("/signup")
@@ -161,4 +187,31 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching user data");
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/sign_out")
+    public ResponseEntity<?> signOut(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No token to sign out");
+        }
+        try {
+            Claims claims = jwtUtil.parseToken(authorization.substring(7));
+            if (claims.getId() == null) {
+                return ResponseEntity.badRequest().body("Token cannot be revoked, it has no id");
+            }
+            tokenRevocationService.revoke(claims.getId(),
+                    LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+            logger.info("User {} signed out", claims.getSubject());
+            return ResponseEntity.ok("Signed out successfully");
+        } catch (JwtException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid token");
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/revoke/{jti}")
+    public ResponseEntity<String> revokeToken(@PathVariable String jti) {
+        // The token itself is not at hand, so keep the row for the longest possible token lifetime
+        tokenRevocationService.revoke(jti, LocalDateTime.now().plusNanos(jwtUtil.getExpirationMs() * 1_000_000));
+        return ResponseEntity.ok("Token revoked");
+    }
+}
@@ -1,5 +1,6 @@
 package com.springboot.pos.controller;
 
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.CustomerDto;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.service.CustomerService;
@@ -38,6 +39,17 @@ public class CustomerController {
 
     }
 
+    // Cursor mode: ?limit=&after=<nextCursor>, no total count
+    @GetMapping(params = "limit")
+    public CursorResponse<CustomerDto> scrollCustomers(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
+    ) {
+        return customerService.scrollCustomers(after, limit, sortBy, sortDir);
+    }
+
 
     @GetMapping("/{id}")
     public ResponseEntity<CustomerDto> getCustomerById(@PathVariable(name = "id") long id) {
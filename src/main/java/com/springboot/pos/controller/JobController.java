@@ -0,0 +1,27 @@
+package com.springboot.pos.controller;
+
+import com.springboot.pos.model.JobLease;
+import com.springboot.pos.service.job.ClusterJobRunner;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+    private final ClusterJobRunner clusterJobRunner;
+
+    public JobController(ClusterJobRunner clusterJobRunner) {
+        this.clusterJobRunner = clusterJobRunner;
+    }
+
+    // Lease holder and last run of every background job
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public List<JobLease> getJobs() {
+        return clusterJobRunner.getJobStatus();
+    }
+}
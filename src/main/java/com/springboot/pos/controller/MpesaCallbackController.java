@@ -1,6 +1,6 @@
 package com.springboot.pos.controller;
 
-import com.springboot.pos.service.MpesaPaymentService;
+import com.springboot.pos.service.MpesaCallbackInbox;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -15,15 +15,16 @@ import java.util.Map;
 public class MpesaCallbackController {
 
     @Autowired
-    private MpesaPaymentService mpesaPaymentService;
+    private MpesaCallbackInbox mpesaCallbackInbox;
 
+    // Only stores the callback; it is applied to its transaction asynchronously
     @PostMapping("/callback")
     public ResponseEntity<String> handleCallback(@RequestBody Map<String, Object> callbackData) {
         try {
-            mpesaPaymentService.handleCallback(callbackData);
-            return ResponseEntity.ok("Callback processed successfully");
+            mpesaCallbackInbox.accept(callbackData);
+            return ResponseEntity.ok("Callback accepted");
         } catch (Exception e) {
-            return ResponseEntity.status(500).body("Failed to process callback: " + e.getMessage());
+            return ResponseEntity.status(500).body("Failed to accept callback: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
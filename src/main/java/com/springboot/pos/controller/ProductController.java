@@ -1,12 +1,16 @@
 package com.springboot.pos.controller;
 
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.ProductDto;
+import com.springboot.pos.payload.StockLevelDto;
+import com.springboot.pos.payload.StockMovementDto;
 import com.springboot.pos.service.ProductService;
 import com.springboot.pos.utils.AppConstants;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/products")
@@ -46,6 +51,18 @@ public class ProductController {
         return productService.getAllProducts(pageNo, pageSize, sortBy, sortDir, category);
     }
 
+    // Cursor mode: ?limit=&after=<nextCursor>, no total count
+    @GetMapping(params = "limit")
+    public CursorResponse<ProductDto> scrollProducts(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir,
+            @RequestParam(value = "category", required = false) String category) {
+        logger.info("Scrolling products - limit: {}, sortBy: {}, sortDir: {}, category: {}", limit, sortBy, sortDir, category);
+        return productService.scrollProducts(after, limit, sortBy, sortDir, category);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductDto> getProductById(@PathVariable(name = "id") long id) {
         logger.info("Fetching product with ID: {}", id);
@@ -73,4 +90,29 @@ public class ProductController {
         logger.info("Product deleted successfully: {}", id);
         return new ResponseEntity<>("Product deleted successfully", HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{id}/restock")
+    public ResponseEntity<StockLevelDto> restockProduct(@PathVariable(name = "id") long id,
+                                                        @RequestBody @Valid StockMovementDto movement) {
+        logger.info("Restocking product {} with {} units", id, movement.getQuantity());
+        return ResponseEntity.ok(productService.restockProduct(id, movement));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/{id}/stock-take")
+    public ResponseEntity<StockLevelDto> recordStockTake(@PathVariable(name = "id") long id,
+                                                         @RequestBody @Valid StockMovementDto movement) {
+        logger.info("Recording stock-take of product {}: {} counted", id, movement.getQuantity());
+        return ResponseEntity.ok(productService.recordStockTake(id, movement));
+    }
+
+    // Stock as it was at ?at=2026-01-31T14:00:00, from the inventory ledger
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/{id}/stock", params = "at")
+    public ResponseEntity<StockLevelDto> getStockAt(
+            @PathVariable(name = "id") long id,
+            @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(productService.getStockAt(id, at));
+    }
+}
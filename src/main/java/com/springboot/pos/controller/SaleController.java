@@ -1,17 +1,25 @@
 package com.springboot.pos.controller;
 
+import com.springboot.pos.exception.PosApiException;
 import com.springboot.pos.payload.*;
+import com.springboot.pos.service.SaleIdempotencyService;
 import com.springboot.pos.service.SaleService;
+import com.springboot.pos.service.SalesExportService;
+import com.springboot.pos.service.SalesRollupService;
 import com.springboot.pos.utils.AppConstants;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDate;
 
 @RestController
@@ -19,16 +27,36 @@ import java.time.LocalDate;
 public class SaleController {
     private static final Logger logger = LoggerFactory.getLogger(SaleController.class);
     private final SaleService saleService;
+    private final SaleIdempotencyService saleIdempotencyService;
+    private final SalesRollupService salesRollupService;
+    private final SalesExportService salesExportService;
 
-    public SaleController(SaleService saleService) {
+    public SaleController(SaleService saleService,
+                          SaleIdempotencyService saleIdempotencyService,
+                          SalesRollupService salesRollupService,
+                          SalesExportService salesExportService) {
         this.saleService = saleService;
+        this.saleIdempotencyService = saleIdempotencyService;
+        this.salesRollupService = salesRollupService;
+        this.salesExportService = salesExportService;
     }
 
 //    @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
-    public ResponseEntity<SaleResponseDto> processSale(@Valid @RequestBody SaleRequestDto saleRequest) {
+    public ResponseEntity<SaleResponseDto> processSale(
+            @Valid @RequestBody SaleRequestDto saleRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         logger.info("Processing sale request with payment method: {}", saleRequest.getPaymentMethod());
-        SaleResponseDto saleResponse = saleService.processSale(saleRequest);
+        SaleResponseDto saleResponse = idempotencyKey != null
+                ? saleIdempotencyService.execute(idempotencyKey, saleRequest,
+                        () -> saleService.processSale(saleRequest))
+                : saleService.processSale(saleRequest);
+        if ("PENDING".equals(saleResponse.getStatus())) {
+            logger.info("Sale {} accepted, awaiting payment confirmation", saleResponse.getId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/sales/" + saleResponse.getId() + "/status"))
+                    .body(saleResponse);
+        }
         logger.info("Sale processed successfully with ID: {}", saleResponse.getId());
         return new ResponseEntity<>(saleResponse, HttpStatus.CREATED);
     }
@@ -43,12 +71,56 @@ public class SaleController {
         return saleService.getAllSales(pageNo, pageSize, sortBy, sortDir);
     }
 
+    // Cursor mode: ?limit=&after=<nextCursor>, no total count
+    @GetMapping(params = "limit")
+    public CursorResponse<SaleResponseDto> scrollSales(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
+    ) {
+        return saleService.scrollSales(after, limit, sortBy, sortDir);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "format", defaultValue = "csv") String format
+    ) {
+        if (from.isAfter(to)) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        SalesExportService.Format exportFormat;
+        try {
+            exportFormat = SalesExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+        }
+        logger.info("Exporting sales for period: {} to {} as {}", from, to, exportFormat);
+
+        String filename = "sales-" + from + "-" + to + "." + exportFormat.name().toLowerCase();
+        MediaType contentType = exportFormat == SalesExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.APPLICATION_NDJSON;
+        StreamingResponseBody body = out -> salesExportService.export(from, to, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<SaleResponseDto> getSaleById(@PathVariable Long id) {
         SaleResponseDto saleResponse = saleService.getSaleById(id);
         return ResponseEntity.ok(saleResponse);
     }
 
+    @GetMapping("/{id}/status")
+    public ResponseEntity<SaleStatusDto> getSaleStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(saleService.getSaleStatus(id));
+    }
+
 
     @GetMapping("/overview")
     public ResponseEntity<SalesReportDto> getSalesReport(
@@ -70,4 +142,15 @@ public class SaleController {
             throw new RuntimeException("Failed to generate sales report: " + e.getMessage(), e);
         }
     }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<String> rebuildSalesRollup(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        logger.info("Rebuilding sales rollup for period: {} to {}", from, to);
+        int rows = salesRollupService.rebuild(from, to);
+        return ResponseEntity.ok("Rebuilt " + rows + " rollup rows");
+    }
 }
\ No newline at end of file
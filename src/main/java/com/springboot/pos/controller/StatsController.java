@@ -0,0 +1,254 @@
+package com.springboot.pos.controller;
+
+import com.springboot.pos.security.JwtAuthenticationFilter;
+import com.springboot.pos.security.LoginExecutor;
+import com.springboot.pos.security.TokenRevocationService;
+import com.springboot.pos.service.AuditLogWriter;
+import com.springboot.pos.service.HotStockService;
+import com.springboot.pos.service.InventoryLedger;
+import com.springboot.pos.service.LowStockAlertDispatcher;
+import com.springboot.pos.service.MpesaCallbackInbox;
+import com.springboot.pos.service.MpesaTokenManager;
+import com.springboot.pos.service.PaymentCompletionRegistry;
+import com.springboot.pos.service.PaymentGatewayClient;
+import com.springboot.pos.service.PaymentReconciliationJob;
+import com.springboot.pos.service.StockReservationService;
+import com.springboot.pos.service.cache.BoundedCache;
+import com.springboot.pos.service.cache.CacheInvalidationBus;
+import com.springboot.pos.service.cache.ProductCatalogCache;
+import com.springboot.pos.utils.LatencyHistogram;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+    private final AuditLogWriter auditLogWriter;
+    private final ProductCatalogCache productCatalogCache;
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final LoginExecutor loginExecutor;
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final LowStockAlertDispatcher lowStockAlertDispatcher;
+    private final InventoryLedger inventoryLedger;
+    private final HotStockService hotStockService;
+    private final StockReservationService stockReservationService;
+    private final PaymentReconciliationJob paymentReconciliationJob;
+    private final MpesaCallbackInbox mpesaCallbackInbox;
+    private final PaymentCompletionRegistry paymentCompletionRegistry;
+    private final MpesaTokenManager mpesaTokenManager;
+    private final TokenRevocationService tokenRevocationService;
+
+    public StatsController(AuditLogWriter auditLogWriter,
+                           ProductCatalogCache productCatalogCache,
+                           JwtAuthenticationFilter jwtAuthenticationFilter,
+                           CacheInvalidationBus cacheInvalidationBus,
+                           LoginExecutor loginExecutor,
+                           PaymentGatewayClient paymentGatewayClient,
+                           LowStockAlertDispatcher lowStockAlertDispatcher,
+                           InventoryLedger inventoryLedger,
+                           HotStockService hotStockService,
+                           StockReservationService stockReservationService,
+                           PaymentReconciliationJob paymentReconciliationJob,
+                           MpesaCallbackInbox mpesaCallbackInbox,
+                           PaymentCompletionRegistry paymentCompletionRegistry,
+                           MpesaTokenManager mpesaTokenManager,
+                           TokenRevocationService tokenRevocationService) {
+        this.auditLogWriter = auditLogWriter;
+        this.productCatalogCache = productCatalogCache;
+        this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.loginExecutor = loginExecutor;
+        this.paymentGatewayClient = paymentGatewayClient;
+        this.lowStockAlertDispatcher = lowStockAlertDispatcher;
+        this.inventoryLedger = inventoryLedger;
+        this.hotStockService = hotStockService;
+        this.stockReservationService = stockReservationService;
+        this.paymentReconciliationJob = paymentReconciliationJob;
+        this.mpesaCallbackInbox = mpesaCallbackInbox;
+        this.paymentCompletionRegistry = paymentCompletionRegistry;
+        this.mpesaTokenManager = mpesaTokenManager;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    // Counters of the background writers and caches on this instance
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("auditLog", auditLogStats());
+        stats.put("caches", cacheStats());
+        stats.put("cacheInvalidation", cacheInvalidationStats());
+        stats.put("logins", loginStats());
+        stats.put("tokenRevocation", tokenRevocationStats());
+        stats.put("mpesaGateway", gatewayStats());
+        stats.put("lowStockAlerts", lowStockAlertStats());
+        stats.put("ledger", ledgerStats());
+        stats.put("hotStock", hotStockStats());
+        stats.put("stockReservations", stockReservationStats());
+        stats.put("mpesaCallbacks", callbackInboxStats());
+        stats.put("paymentCompletions", paymentCompletionStats());
+        return stats;
+    }
+
+    private Map<String, Object> auditLogStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", auditLogWriter.getQueueDepth());
+        stats.put("written", auditLogWriter.getWrittenCount());
+        stats.put("dropped", auditLogWriter.getDroppedCount());
+        stats.put("spilled", auditLogWriter.getSpilledCount());
+        stats.put("failed", auditLogWriter.getFailedCount());
+        return stats;
+    }
+
+    private Map<String, Object> cacheStats() {
+        List<BoundedCache<?, ?>> caches = new ArrayList<>(productCatalogCache.getCaches());
+        if (jwtAuthenticationFilter.getPrincipalCache() != null) {
+            caches.add(jwtAuthenticationFilter.getPrincipalCache());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (BoundedCache<?, ?> cache : caches) {
+            Map<String, Object> counters = new LinkedHashMap<>();
+            counters.put("size", cache.getSize());
+            counters.put("hits", cache.getHitCount());
+            counters.put("misses", cache.getMissCount());
+            counters.put("evictions", cache.getEvictionCount());
+            counters.put("invalidations", cache.getInvalidationCount());
+            stats.put(cache.getName(), counters);
+        }
+        return stats;
+    }
+
+    private Map<String, Object> cacheInvalidationStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", cacheInvalidationBus.getNodeId());
+        stats.put("published", cacheInvalidationBus.getPublishedCount());
+        stats.put("applied", cacheInvalidationBus.getAppliedCount());
+        stats.put("pollFailures", cacheInvalidationBus.getPollFailureCount());
+        stats.put("lastLagMs", cacheInvalidationBus.getLastLagMs());
+        stats.put("maxLagMs", cacheInvalidationBus.getMaxLagMs());
+        stats.put("openGaps", cacheInvalidationBus.getOpenGapCount());
+        stats.put("lastPollAt", cacheInvalidationBus.getLastPollAt());
+        return stats;
+    }
+
+    private Map<String, Object> loginStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", loginExecutor.getQueueDepth());
+        stats.put("active", loginExecutor.getActiveCount());
+        stats.put("attempts", loginExecutor.getAttemptCount());
+        stats.put("throttled", loginExecutor.getThrottledCount());
+        stats.put("rejected", loginExecutor.getRejectedCount());
+        stats.put("hashes", loginExecutor.getHashCount());
+        stats.put("averageHashMs", loginExecutor.getAverageHashMs());
+        stats.put("maxHashMs", loginExecutor.getMaxHashMs());
+        return stats;
+    }
+
+    private Map<String, Object> gatewayStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuitState", paymentGatewayClient.getCircuitState());
+        stats.put("inFlight", paymentGatewayClient.getInFlightCalls());
+        stats.put("failures", paymentGatewayClient.getFailureCount());
+        stats.put("bulkheadRejections", paymentGatewayClient.getBulkheadRejectionCount());
+        stats.put("circuitRejections", paymentGatewayClient.getCircuitRejectionCount());
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (PaymentGatewayClient.Endpoint endpoint : PaymentGatewayClient.Endpoint.values()) {
+            LatencyHistogram histogram = paymentGatewayClient.getLatency(endpoint);
+            Map<String, Object> endpointLatency = new LinkedHashMap<>();
+            endpointLatency.put("count", histogram.getCount());
+            endpointLatency.put("meanMs", histogram.getMeanMs());
+            endpointLatency.put("p50Ms", histogram.percentileMs(50));
+            endpointLatency.put("p95Ms", histogram.percentileMs(95));
+            endpointLatency.put("p99Ms", histogram.percentileMs(99));
+            endpointLatency.put("maxMs", histogram.getMaxMs());
+            latency.put(endpoint.name(), endpointLatency);
+        }
+        stats.put("latency", latency);
+        Map<String, Object> reconciliation = new LinkedHashMap<>();
+        reconciliation.put("resolved", paymentReconciliationJob.getResolvedCount());
+        reconciliation.put("stillPending", paymentReconciliationJob.getStillPendingCount());
+        reconciliation.put("errors", paymentReconciliationJob.getErrorCount());
+        stats.put("reconciliation", reconciliation);
+        Map<String, Object> accessToken = new LinkedHashMap<>();
+        accessToken.put("refreshes", mpesaTokenManager.getRefreshCount());
+        accessToken.put("refreshFailures", mpesaTokenManager.getRefreshFailureCount());
+        accessToken.put("forcedRefreshes", mpesaTokenManager.getForcedRefreshCount());
+        stats.put("accessToken", accessToken);
+        return stats;
+    }
+
+    private Map<String, Object> lowStockAlertStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", lowStockAlertDispatcher.getPendingCount());
+        stats.put("submitted", lowStockAlertDispatcher.getSubmittedCount());
+        stats.put("digests", lowStockAlertDispatcher.getDigestCount());
+        stats.put("alerted", lowStockAlertDispatcher.getAlertedCount());
+        stats.put("suppressed", lowStockAlertDispatcher.getSuppressedCount());
+        stats.put("cleared", lowStockAlertDispatcher.getClearedCount());
+        stats.put("failed", lowStockAlertDispatcher.getFailedCount());
+        return stats;
+    }
+
+    private Map<String, Object> ledgerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("appended", inventoryLedger.getAppendedCount());
+        stats.put("folded", inventoryLedger.getFoldedCount());
+        stats.put("snapshots", inventoryLedger.getSnapshotCount());
+        return stats;
+    }
+
+    private Map<String, Object> hotStockStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", hotStockService.getHotProductIds());
+        stats.put("allottedUnits", hotStockService.getAllottedUnits());
+        stats.put("reserved", hotStockService.getReservedInMemoryCount());
+        stats.put("rejected", hotStockService.getRejectedCount());
+        stats.put("borrows", hotStockService.getBorrowCount());
+        stats.put("borrowedUnits", hotStockService.getBorrowedUnitCount());
+        stats.put("returnedUnits", hotStockService.getReturnedUnitCount());
+        stats.put("reclaimedUnits", hotStockService.getReclaimedUnitCount());
+        return stats;
+    }
+
+    private Map<String, Object> stockReservationStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", stockReservationService.getPendingCount());
+        stats.put("held", stockReservationService.getHeldCount());
+        stats.put("expiredSales", stockReservationService.getExpiredSaleCount());
+        stats.put("releasedUnits", stockReservationService.getReleasedUnitCount());
+        return stats;
+    }
+
+    private Map<String, Object> callbackInboxStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backlog", mpesaCallbackInbox.getBacklog());
+        stats.put("accepted", mpesaCallbackInbox.getAcceptedCount());
+        stats.put("processed", mpesaCallbackInbox.getProcessedCount());
+        stats.put("retried", mpesaCallbackInbox.getRetriedCount());
+        stats.put("failed", mpesaCallbackInbox.getFailedCount());
+        return stats;
+    }
+
+    private Map<String, Object> paymentCompletionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("waiters", paymentCompletionRegistry.getWaiterCount());
+        stats.put("localCompletions", paymentCompletionRegistry.getLocalCompletionCount());
+        stats.put("remoteCompletions", paymentCompletionRegistry.getRemoteCompletionCount());
+        return stats;
+    }
+
+    private Map<String, Object> tokenRevocationStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("filterHits", tokenRevocationService.getFilterHitCount());
+        stats.put("confirmedHits", tokenRevocationService.getConfirmedHitCount());
+        return stats;
+    }
+}
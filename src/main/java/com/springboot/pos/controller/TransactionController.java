@@ -1,5 +1,6 @@
 package com.springboot.pos.controller;
 
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.TransactionDto;
 import com.springboot.pos.service.TransactionService;
@@ -27,5 +28,16 @@ public class TransactionController {
 
     }
 
+    // Cursor mode: ?limit=&after=<nextCursor>, no total count
+    @GetMapping(params = "limit")
+    public CursorResponse<TransactionDto> scrollTransactions(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
+    ) {
+        return transactionService.scrollTransactions(after, limit, sortBy, sortDir);
+    }
+
 
 }
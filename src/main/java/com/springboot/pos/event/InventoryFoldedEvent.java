@@ -0,0 +1,18 @@
+package com.springboot.pos.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Published after inventory movements have been folded into the stock of the
+ * given products, so checks that read {@code products.stock} see the change.
+ */
+@Getter
+public class InventoryFoldedEvent {
+    private final Collection<Long> productIds;
+
+    public InventoryFoldedEvent(Collection<Long> productIds) {
+        this.productIds = productIds;
+    }
+}
@@ -0,0 +1,25 @@
+package com.springboot.pos.event;
+
+import lombok.Getter;
+
+/**
+ * Published once an M-Pesa {@code Transaction} leaves PENDING, either from the
+ * Daraja callback or from a status query. Listeners use it to complete or roll
+ * back the sale that was left PENDING by the asynchronous checkout.
+ */
+@Getter
+public class PaymentResolvedEvent {
+    private final Long transactionId;
+    private final Long saleId;
+    private final String status;
+
+    public PaymentResolvedEvent(Long transactionId, Long saleId, String status) {
+        this.transactionId = transactionId;
+        this.saleId = saleId;
+        this.status = status;
+    }
+
+    public boolean isSuccessful() {
+        return "SUCCESS".equals(status);
+    }
+}
@@ -8,6 +8,7 @@ public class PosApiException extends RuntimeException {
         private String message;
 
         public PosApiException (HttpStatus status, String message) {
+            super(message);
             this.status = status;
             this.message = message;
         }
@@ -17,5 +18,9 @@ public class PosApiException extends RuntimeException {
             this.status = status;
             this.message = message1;
         }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
     }
 
@@ -0,0 +1,35 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of cache invalidations. Every node tails it by id and evicts
+ * the matching keys from its own in-process caches.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "cache_invalidations",
+        indexes = @Index(name = "idx_cache_invalidations_created_at", columnList = "created_at"))
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String region; // product, category, supplier, customer
+
+    @Column(name = "entity_key", length = 100)
+    private String entityKey; // null invalidates the whole region
+
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,39 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Completed sales per day and customer, kept next to {@link DailySalesRollup}
+ * so the report's customer breakdown does not scan the raw sales of closed
+ * days. {@code totalAmount} is the sale total after discounts and tax, as in
+ * the raw report.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "daily_customer_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_customer_sales_rollup",
+                columnNames = {"sale_date", "customer_id"}))
+public class DailyCustomerSalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "sale_count", nullable = false)
+    private long saleCount;
+}
@@ -0,0 +1,52 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated sales per day, payment method, category and product, kept up
+ * to date as sales are finalized. Sale-level measures are attributed to one row
+ * per sale: {@code saleCount} is 1 on the row of the sale's first product, and
+ * {@code netAmount} is each line's share of the sale total after discounts and
+ * tax, so both still add up to the raw sales figures.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "daily_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_sales_rollup",
+                columnNames = {"sale_date", "payment_method", "category_id", "product_id"}))
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private String paymentMethod;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "units_sold", nullable = false)
+    private long unitsSold;
+
+    @Column(name = "gross_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal grossAmount;
+
+    @Column(name = "net_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal netAmount;
+
+    @Column(name = "sale_count", nullable = false)
+    private long saleCount;
+}
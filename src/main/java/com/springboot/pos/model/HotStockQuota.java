@@ -0,0 +1,39 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Units of a hot product that one node has borrowed into its in-memory
+ * allotment and not yet handed to a sale. They are counted in
+ * {@code products.reserved_stock}; the row lets another node give them back
+ * once the owner stops refreshing it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "hot_stock_quotas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_hot_stock_quotas_owner_product",
+                columnNames = {"owner_node", "product_id"}),
+        indexes = @Index(name = "idx_hot_stock_quotas_updated_at", columnList = "updated_at"))
+public class HotStockQuota {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_node", nullable = false, length = 100)
+    private String ownerNode;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime updatedAt;
+}
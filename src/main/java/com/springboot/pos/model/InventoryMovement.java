@@ -0,0 +1,58 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a product's stock. Rows are only ever appended; the sole later
+ * write is {@code applied_at}, set once the change has been folded into the
+ * product row. Until then it is part of the unapplied tail, and the product's
+ * on-hand stock is {@code products.stock} plus the tail's {@code quantity}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_inventory_movements_product_created_at", columnList = "product_id, created_at"),
+        @Index(name = "idx_inventory_movements_applied_at", columnList = "applied_at")
+})
+public class InventoryMovement {
+
+    public static final String SALE = "SALE";
+    public static final String RELEASE = "RELEASE";
+    public static final String RESTOCK = "RESTOCK";
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+    public static final String STOCK_TAKE = "STOCK_TAKE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "movement_type", nullable = false, length = 20)
+    private String movementType;
+
+    // Signed change to on-hand stock
+    @Column(nullable = false)
+    private int quantity;
+
+    // Units that leave reserved_stock when the movement is folded
+    @Column(name = "reserved_quantity", nullable = false)
+    private int reservedQuantity;
+
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    private String note;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime createdAt;
+
+    @Column(name = "applied_at", columnDefinition = "DATETIME(3)")
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,32 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * On-hand stock of a product as of {@code taken_at}. Stock at any later time is
+ * the latest snapshot before it plus the movements created in between.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "inventory_snapshots", indexes =
+        @Index(name = "idx_inventory_snapshots_product_taken_at", columnList = "product_id, taken_at"))
+public class InventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int stock;
+
+    @Column(name = "taken_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime takenAt;
+}
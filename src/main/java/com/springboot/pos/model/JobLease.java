@@ -0,0 +1,53 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per cluster-wide background job: which node currently holds it and
+ * how its last run went. Leases are taken and renewed with plain conditional
+ * updates by {@code ClusterJobRunner}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "owner_node", length = 100)
+    private String ownerNode;
+
+    @Column(name = "lease_until", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_started_at", columnDefinition = "DATETIME(3)")
+    private LocalDateTime lastStartedAt;
+
+    @Column(name = "last_finished_at", columnDefinition = "DATETIME(3)")
+    private LocalDateTime lastFinishedAt;
+
+    @Column(name = "last_duration_ms")
+    private Long lastDurationMs;
+
+    @Column(name = "last_rows")
+    private Integer lastRows;
+
+    @Column(name = "last_status", length = 20)
+    private String lastStatus; // SUCCESS, FAILED
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "last_node", length = 100)
+    private String lastNode;
+
+    @Column(name = "run_count", nullable = false)
+    private long runCount;
+}
@@ -0,0 +1,29 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product that has already been reported as low on stock. While the row
+ * exists no further alerts go out for it; it is removed once the product is
+ * back at or above its threshold.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "low_stock_alerts")
+public class LowStockAlert {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "alerted_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime alertedAt;
+}
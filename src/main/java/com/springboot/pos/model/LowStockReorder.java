@@ -0,0 +1,29 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product whose reorder has already been sent to purchasing for its current
+ * shortage. Kept apart from {@link LowStockAlert} so a failed purchasing email
+ * is retried without resending the admin one, and the other way round.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "low_stock_reorders")
+public class LowStockReorder {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "sent_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,54 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raw M-Pesa callback as received, kept until a worker has applied it to its
+ * transaction. Rows are written and claimed with plain SQL by
+ * {@code MpesaCallbackInbox}; the entity only describes the table.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "mpesa_callback_inbox", indexes = {
+        @Index(name = "idx_mpesa_callback_inbox_status_available", columnList = "status, available_at"),
+        @Index(name = "idx_mpesa_callback_inbox_checkout_requestid", columnList = "checkout_requestid")
+})
+public class MpesaCallback {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "checkout_requestid", length = 100)
+    private String checkoutRequestId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 20)
+    private String status; // RECEIVED, PROCESSING, PROCESSED, FAILED
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "received_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime receivedAt;
+
+    // Earliest time the row may be claimed: retry backoff, or the end of a claim
+    @Column(name = "available_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime availableAt;
+
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Column(name = "processed_at", columnDefinition = "DATETIME(3)")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,41 @@
+package com.springboot.pos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of an M-Pesa payment as reported by its callback, written so that a
+ * checkout waiting on another node learns about it without polling the
+ * transaction. Rows are short-lived and purged by {@code PaymentCompletionRegistry}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "payment_notifications", indexes = {
+        @Index(name = "idx_payment_notifications_checkout_requestid", columnList = "checkout_requestid"),
+        @Index(name = "idx_payment_notifications_created_at", columnList = "created_at")
+})
+public class PaymentNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "checkout_requestid", nullable = false, length = 100)
+    private String checkoutRequestId;
+
+    @Column(nullable = false, length = 20)
+    private String status; // SUCCESS, FAILED
+
+    private String resultCode;
+
+    private String resultDesc;
+
+    private String receiptNumber;
+
+    @Column(name = "created_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime createdAt;
+}
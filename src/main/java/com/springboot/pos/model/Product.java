@@ -46,6 +46,10 @@ public class Product {
     @Column(name = "reserved_stock", nullable = false)
     private int reservedStock;
 
+    // Reserved from in-memory allotments instead of this row; see HotStockService
+    @Column(name = "hot_sku", nullable = false)
+    private boolean hotSku;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private Date createdAt;
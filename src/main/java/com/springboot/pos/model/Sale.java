@@ -3,6 +3,7 @@ package com.springboot.pos.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,7 +13,8 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "sales")
+@Table(name = "sales",
+        indexes = @Index(name = "idx_sales_sale_date_id", columnList = "sale_date, id"))
 public class Sale {
 
     @Id
@@ -31,9 +33,16 @@ public class Sale {
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
+    // Who rang up the sale; background completion has no request to read it from
+    @Column(name = "cashier_username", length = 100)
+    private String cashierUsername;
+
     @Column(name = "payment_method")
     private String paymentMethod;
 
+    @Column(name = "status", length = 20)
+    private String status; // PENDING, COMPLETED, FAILED
+
     @Column(name = "subtotal_amount", nullable = false)
     private Double subtotalAmount;
 
@@ -46,7 +55,12 @@ public class Sale {
     @Column(name = "total_amount", nullable = false)
     private Double totalAmount;
 
+    // Points taken from the customer for this sale, refunded if it fails
+    @Column(name = "loyalty_points_used", nullable = false)
+    private int loyaltyPointsUsed;
+
     @OneToMany(mappedBy = "sale", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<SaleItem> saleItems = new ArrayList<>();
 
     @OneToOne(mappedBy = "sale", cascade = CascadeType.ALL)
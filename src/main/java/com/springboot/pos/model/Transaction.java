@@ -12,7 +12,11 @@ import java.time.LocalDateTime;
 @Setter
 @Entity
 
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_transactions_checkout_requestid", columnList = "checkout_requestid"),
+        @Index(name = "idx_transactions_status_created_at", columnList = "status, created_at")
+})
 public class Transaction {
 
     @Id
@@ -0,0 +1,17 @@
+package com.springboot.pos.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorResponse<T> {
+    private List<T> content;
+    private int limit;
+    private String nextCursor; // pass back as ?after= to fetch the next page, null on the last page
+    private boolean last;
+}
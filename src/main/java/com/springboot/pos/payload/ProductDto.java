@@ -45,6 +45,7 @@ public class ProductDto {
     private BigDecimal price;
 
     private int reservedStock;
+    private boolean hotSku;
     private String categoryName;
     private String supplierName;
 
@@ -0,0 +1,10 @@
+package com.springboot.pos.payload;
+
+/**
+ * Stock columns of a product, read without loading the entity.
+ */
+public interface ProductStockCount {
+    Long getId();
+    int getStock();
+    int getReservedStock();
+}
@@ -0,0 +1,14 @@
+package com.springboot.pos.payload;
+
+/**
+ * Read-only view of a product's current stock, read straight from the database
+ * after a bulk stock update so it never reflects a stale managed entity.
+ */
+public interface ProductStockLevel {
+    Long getId();
+    String getName();
+    int getStock();
+    int getLowStockThreshold();
+    int getLowStockMinimumOrder();
+    String getSupplierName();
+}
@@ -0,0 +1,25 @@
+package com.springboot.pos.payload;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One sale item joined with its sale, as read by the sales export.
+ */
+public interface SaleExportRow {
+    Long getSaleId();
+    LocalDateTime getSaleDate();
+    String getStatus();
+    String getPaymentMethod();
+    String getCustomerName();
+    String getCashier();
+    Double getSubtotalAmount();
+    Double getDiscountAmount();
+    Double getTaxAmount();
+    Double getTotalAmount();
+    Long getProductId();
+    String getProductName();
+    Integer getQuantity();
+    BigDecimal getUnitPrice();
+    BigDecimal getLineTotal();
+}
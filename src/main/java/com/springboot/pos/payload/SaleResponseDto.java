@@ -23,6 +23,7 @@ public class SaleResponseDto {
     private UserDto user;
     private CustomerDto customer;
     private String paymentMethod;
+    private String status; // PENDING until an asynchronous payment resolves
     private List<SaleItemResponseDto> items;
 //    private TransactionDto transaction; //  i can add this later if i want transaction details to display
 }
\ No newline at end of file
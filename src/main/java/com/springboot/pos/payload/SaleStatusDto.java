@@ -0,0 +1,16 @@
+package com.springboot.pos.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SaleStatusDto {
+    private Long saleId;
+    private String status;
+    private String paymentStatus;
+    private String checkoutRequestId;
+    private String resultDesc;
+}
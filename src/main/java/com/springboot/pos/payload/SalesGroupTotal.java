@@ -0,0 +1,10 @@
+package com.springboot.pos.payload;
+
+/**
+ * One row of a GROUP BY over sales: the group key (a day, payment method or
+ * customer name) and the summed sale totals.
+ */
+public interface SalesGroupTotal {
+    Object getLabel();
+    Double getTotal();
+}
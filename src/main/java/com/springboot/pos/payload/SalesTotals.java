@@ -0,0 +1,6 @@
+package com.springboot.pos.payload;
+
+public interface SalesTotals {
+    long getSaleCount();
+    Double getTotalAmount();
+}
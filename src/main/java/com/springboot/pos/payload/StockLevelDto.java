@@ -0,0 +1,18 @@
+package com.springboot.pos.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLevelDto {
+    private Long productId;
+    private int stock;
+    private LocalDateTime at;
+    // Snapshot the figure was rolled forward from; null for current stock
+    private LocalDateTime snapshotTakenAt;
+}
@@ -0,0 +1,13 @@
+package com.springboot.pos.payload;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class StockMovementDto {
+    // Units received for a restock, units counted for a stock-take
+    @NotNull
+    private Integer quantity;
+
+    private String note;
+}
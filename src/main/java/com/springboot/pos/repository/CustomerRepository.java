@@ -1,7 +1,13 @@
 package com.springboot.pos.repository;
 
 import com.springboot.pos.model.Customer;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    Window<Customer> findAllBy(ScrollPosition position, Sort sort, Limit limit);
 }
@@ -0,0 +1,18 @@
+package com.springboot.pos.repository;
+
+import com.springboot.pos.model.DailyCustomerSalesRollup;
+import com.springboot.pos.payload.SalesGroupTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyCustomerSalesRollupRepository extends JpaRepository<DailyCustomerSalesRollup, Long> {
+
+    @Query("SELECT c.name AS label, SUM(r.totalAmount) AS total FROM DailyCustomerSalesRollup r " +
+            "JOIN Customer c ON c.id = r.customerId " +
+            "WHERE " + DailySalesRollupRepository.RANGE + " GROUP BY c.name")
+    List<SalesGroupTotal> sumByCustomer(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,31 @@
+package com.springboot.pos.repository;
+
+import com.springboot.pos.model.DailySalesRollup;
+import com.springboot.pos.payload.SalesGroupTotal;
+import com.springboot.pos.payload.SalesTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    String RANGE = "(:from IS NULL OR r.saleDate >= :from) AND r.saleDate <= :to";
+
+    @Query("SELECT COALESCE(SUM(r.saleCount), 0) AS saleCount, SUM(r.netAmount) AS totalAmount " +
+            "FROM DailySalesRollup r WHERE " + RANGE)
+    SalesTotals sumTotals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT SUM(r.unitsSold) FROM DailySalesRollup r WHERE " + RANGE)
+    Long sumUnitsSold(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT r.saleDate AS label, SUM(r.netAmount) AS total FROM DailySalesRollup r " +
+            "WHERE " + RANGE + " GROUP BY r.saleDate ORDER BY r.saleDate")
+    List<SalesGroupTotal> sumByDate(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT r.paymentMethod AS label, SUM(r.netAmount) AS total FROM DailySalesRollup r " +
+            "WHERE " + RANGE + " GROUP BY r.paymentMethod")
+    List<SalesGroupTotal> sumByPaymentMethod(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,7 @@
+package com.springboot.pos.repository;
+
+import com.springboot.pos.model.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+}
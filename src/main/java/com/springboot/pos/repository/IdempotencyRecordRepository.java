@@ -0,0 +1,40 @@
+package com.springboot.pos.repository;
+
+import com.springboot.pos.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.claimToken = :token AND r.status = 'IN_PROGRESS'")
+    int releaseClaim(@Param("id") Long id, @Param("token") String token);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimToken = :token, r.updatedAt = :now " +
+            "WHERE r.id = :id AND r.status = 'IN_PROGRESS' AND COALESCE(r.updatedAt, r.createdAt) < :cutoff")
+    int claimStale(@Param("id") Long id, @Param("token") String token,
+                   @Param("now") LocalDateTime now, @Param("cutoff") LocalDateTime cutoff);
+
+    // Joins the sale's transaction, so the key completes exactly when the sale commits
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseBody = :body, r.updatedAt = :now " +
+            "WHERE r.id = :id AND r.claimToken = :token AND r.status = 'IN_PROGRESS'")
+    int complete(@Param("id") Long id, @Param("token") String token,
+                 @Param("body") String body, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package com.springboot.pos.repository;
+
+import com.springboot.pos.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+}
@@ -1,15 +1,53 @@
 package com.springboot.pos.repository;
 
 import com.springboot.pos.model.Product;
+import com.springboot.pos.payload.ProductStockCount;
+import com.springboot.pos.payload.ProductStockLevel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+    @EntityGraph(attributePaths = {"category", "supplier"})
     @Query("SELECT p FROM Product p WHERE LOWER(p.category.name) = LOWER(:categoryName)")
     Page<Product> findByCategoryName(@Param("categoryName") String categoryName, Pageable pageable);
+    @EntityGraph(attributePaths = {"category", "supplier"})
     Page<Product> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    Window<Product> findByCategoryNameIgnoreCase(String categoryName, ScrollPosition position, Sort sort, Limit limit);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "supplier"})
+    List<Product> findAllById(Iterable<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT p.id AS id, p.stock AS stock, p.reservedStock AS reservedStock FROM Product p WHERE p.id IN :ids")
+    List<ProductStockCount> findStockCounts(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.lowStockThreshold AS lowStockThreshold, " +
+            "p.lowStockMinimumOrder AS lowStockMinimumOrder, s.name AS supplierName " +
+            "FROM Product p LEFT JOIN p.supplier s " +
+            "WHERE p.id IN :ids AND p.lowStockThreshold > 0 AND p.stock < p.lowStockThreshold")
+    List<ProductStockLevel> findLowStockLevels(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,22 @@
+package com.springboot.pos.repository;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Single-statement stock mutations. Each method takes the quantities keyed by
+ * product id in ascending order, so concurrent sales always lock product rows
+ * in the same order, and sends one conditional UPDATE per product as a single
+ * JDBC batch.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Reserves stock for every product, only where enough unreserved stock is
+     * left. Returns the ids that could not be reserved; the caller is expected
+     * to roll back the surrounding transaction if any are returned.
+     */
+    List<Long> reserveStock(SortedMap<Long, Integer> quantities);
+
+    void releaseReservedStock(SortedMap<Long, Integer> quantities);
+}
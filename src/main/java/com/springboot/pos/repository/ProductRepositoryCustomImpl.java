@@ -0,0 +1,53 @@
+package com.springboot.pos.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String RESERVE_SQL =
+            "UPDATE products SET reserved_stock = reserved_stock + ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND stock - reserved_stock >= ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE products SET reserved_stock = GREATEST(reserved_stock - ?, 0), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> reserveStock(SortedMap<Long, Integer> quantities) {
+        List<Long> ids = new ArrayList<>(quantities.keySet());
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(RESERVE_SQL, args);
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                rejected.add(ids.get(i));
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void releaseReservedStock(SortedMap<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate(RELEASE_SQL, args);
+    }
+}
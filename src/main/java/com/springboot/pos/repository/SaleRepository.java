@@ -1,15 +1,47 @@
 package com.springboot.pos.repository;
 
 import com.springboot.pos.model.Sale;
+import com.springboot.pos.payload.SaleExportRow;
+import com.springboot.pos.payload.SalesGroupTotal;
+import com.springboot.pos.payload.SalesTotals;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SaleRepository extends JpaRepository<Sale, Long> {
+
+    // Shared report filter: optional date range and optional customer name search
+    String REPORT_FILTER = "(:start IS NULL OR s.saleDate >= :start) " +
+            "AND (:end IS NULL OR s.saleDate <= :end) " +
+            "AND (:search = '' OR LOWER(c.name) LIKE LOWER(CONCAT('%', :search, '%')))";
+
+    // Pending and failed checkouts are not revenue
+    String COMPLETED = "(s.status IS NULL OR s.status = 'COMPLETED')";
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sale s WHERE s.id = :id")
+    Optional<Sale> findByIdForUpdate(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"customer", "user"})
+    Window<Sale> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
     List<Sale> findBySaleDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
     Page<Sale> findByCustomerNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
@@ -22,5 +54,55 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
 
     Page<Sale> findBySaleDateBeforeAndCustomerNameContainingIgnoreCase(
             LocalDateTime endDate, @Param("name") String name, Pageable pageable);
-}
 
+    // No count query: the report already knows how many completed sales match from its totals
+    @EntityGraph(attributePaths = {"customer", "user"})
+    @Query("SELECT s FROM Sale s LEFT JOIN s.customer c WHERE " + REPORT_FILTER + " AND " + COMPLETED)
+    List<Sale> findReportPage(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                              @Param("search") String search, Pageable pageable);
+
+    @Query("SELECT COUNT(s) AS saleCount, SUM(s.totalAmount) AS totalAmount " +
+            "FROM Sale s LEFT JOIN s.customer c WHERE " + REPORT_FILTER + " AND " + COMPLETED)
+    SalesTotals sumReportTotals(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                @Param("search") String search);
+
+    @Query("SELECT SUM(i.quantity) FROM SaleItem i JOIN i.sale s LEFT JOIN s.customer c " +
+            "WHERE " + REPORT_FILTER + " AND " + COMPLETED)
+    Long sumReportItemsSold(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                            @Param("search") String search);
+
+    @Query("SELECT CAST(s.saleDate AS LocalDate) AS label, SUM(s.totalAmount) AS total " +
+            "FROM Sale s LEFT JOIN s.customer c WHERE " + REPORT_FILTER + " AND " + COMPLETED + " " +
+            "GROUP BY CAST(s.saleDate AS LocalDate) ORDER BY CAST(s.saleDate AS LocalDate)")
+    List<SalesGroupTotal> sumReportByDate(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                          @Param("search") String search);
+
+    @Query("SELECT s.paymentMethod AS label, SUM(s.totalAmount) AS total " +
+            "FROM Sale s LEFT JOIN s.customer c WHERE " + REPORT_FILTER + " AND " + COMPLETED + " " +
+            "GROUP BY s.paymentMethod")
+    List<SalesGroupTotal> sumReportByPaymentMethod(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                                   @Param("search") String search);
+
+    @Query("SELECT c.name AS label, SUM(s.totalAmount) AS total " +
+            "FROM Sale s JOIN s.customer c WHERE " + REPORT_FILTER + " AND " + COMPLETED + " " +
+            "GROUP BY c.name")
+    List<SalesGroupTotal> sumReportByCustomer(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                              @Param("search") String search);
+
+    // Forward-only scan for the export. Integer.MIN_VALUE makes MySQL stream rows
+    // instead of buffering the whole result; rows are projections, so nothing
+    // accumulates in the persistence context either.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s.id AS saleId, s.saleDate AS saleDate, s.status AS status, s.paymentMethod AS paymentMethod, " +
+            "c.name AS customerName, u.username AS cashier, s.subtotalAmount AS subtotalAmount, " +
+            "s.discountAmount AS discountAmount, s.taxAmount AS taxAmount, s.totalAmount AS totalAmount, " +
+            "p.id AS productId, p.name AS productName, si.quantity AS quantity, si.unitPrice AS unitPrice, " +
+            "si.totalPrice AS lineTotal " +
+            "FROM SaleItem si JOIN si.sale s JOIN si.product p LEFT JOIN s.customer c LEFT JOIN s.user u " +
+            "WHERE s.saleDate >= :start AND s.saleDate < :end AND " + COMPLETED + " " +
+            "ORDER BY s.saleDate, s.id, si.id")
+    Stream<SaleExportRow> streamExportRows(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -1,7 +1,15 @@
 package com.springboot.pos.repository;
 
 import com.springboot.pos.model.Transaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -11,8 +19,26 @@ import java.util.Optional;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    Window<Transaction> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
     Optional<Transaction> findByCheckoutRequestId(String checkoutRequestId);
 
+    @EntityGraph(attributePaths = "sale")
+    Window<Transaction> findByStatusAndCreatedAtBefore(String status, LocalDateTime cutoff,
+                                                       ScrollPosition position, Sort sort, Limit limit);
+
+    // Only the first resolution of an open transaction takes effect
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.resultCode = :resultCode, t.resultDesc = :resultDesc, " +
+            "t.transactionId = COALESCE(:receiptNumber, t.transactionId), t.updatedAt = :updatedAt " +
+            "WHERE t.id = :id AND t.status IN ('PENDING', 'TIMEOUT')")
+    int resolveIfOpen(@Param("id") Long id,
+                      @Param("status") String status,
+                      @Param("resultCode") String resultCode,
+                      @Param("resultDesc") String resultDesc,
+                      @Param("receiptNumber") String receiptNumber,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
     List<Transaction> findByStatusAndCreatedAtAfter(String status, LocalDateTime createdAt);
 
     List<Transaction> findByStatus(String status);
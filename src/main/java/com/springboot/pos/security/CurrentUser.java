@@ -0,0 +1,27 @@
+package com.springboot.pos.security;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Name to record in audit entries for work done on the current thread.
+ * Callback dispatchers, reconciliation and timers serve no request and have
+ * no authentication; their work is recorded as {@link #SYSTEM}.
+ */
+public final class CurrentUser {
+
+    public static final String SYSTEM = "system";
+
+    private CurrentUser() {
+    }
+
+    public static String username() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return SYSTEM;
+        }
+        return authentication.getName();
+    }
+}
@@ -1,9 +1,15 @@
 package com.springboot.pos.security;
 
+import com.springboot.pos.service.cache.BoundedCache;
 import com.springboot.pos.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,9 +21,23 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Authenticates bearer tokens from their signed claims alone: the token is
+ * parsed once, and the roles and verified flag issued by
+ * {@link JwtUtil#generateToken} replace the per-request user lookup. Verified
+ * principals are kept for a short time keyed by the token's SHA-256, so
+ * repeat requests skip the signature check as well.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -29,35 +49,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    private final BoundedCache<String, VerifiedPrincipal> principalCache;
+
+    public JwtAuthenticationFilter(@Value("${jwt.principal-cache.max-size:10000}") int maxSize,
+                                   @Value("${jwt.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.principalCache = ttlSeconds > 0
+                ? new BoundedCache<>("jwt-principals", maxSize, ttlSeconds, TimeUnit.SECONDS)
+                : null;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String jwt = getJwtFromRequest(request);
 
-        if (jwt != null) {
-            if (!jwtUtil.isValidTokenFormat(jwt)) {
-                logger.error("Invalid JWT format for request: {}", request.getRequestURI());
-                SecurityContextHolder.clearContext();
-                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT format");
-                return;
-            }
-
+        if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                String username = jwtUtil.extractUsername(jwt);
-
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    if (jwtUtil.validateToken(jwt, userDetails)) {
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    } else {
-                        logger.error("JWT validation failed for request: {}", request.getRequestURI());
-                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT token");
-                        return;
-                    }
-                }
+                UserDetails userDetails = authenticate(jwt);
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             } catch (Exception e) {
                 logger.error("JWT validation failed for request: {} - Error: {}", request.getRequestURI(), e.getMessage());
                 SecurityContextHolder.clearContext();
@@ -69,6 +84,58 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    public BoundedCache<String, VerifiedPrincipal> getPrincipalCache() {
+        return principalCache;
+    }
+
+    private UserDetails authenticate(String jwt) {
+        if (principalCache == null) {
+            VerifiedPrincipal principal = verify(jwt);
+            if (tokenRevocationService.isRevoked(principal.jti())) {
+                throw new JwtException("JWT token has been revoked");
+            }
+            return principal.userDetails();
+        }
+        String key = sha256(jwt);
+        VerifiedPrincipal principal = principalCache.get(key, k -> verify(jwt));
+        if (principal.expiresAt() <= System.currentTimeMillis()) {
+            principalCache.invalidate(key);
+            throw new JwtException("JWT token is expired");
+        }
+        // Checked on every request, cached or not, so revocation takes effect at once
+        if (tokenRevocationService.isRevoked(principal.jti())) {
+            principalCache.invalidate(key);
+            throw new JwtException("JWT token has been revoked");
+        }
+        return principal.userDetails();
+    }
+
+    private VerifiedPrincipal verify(String jwt) {
+        Claims claims = jwtUtil.parseToken(jwt);
+        String username = claims.getSubject();
+        if (username == null) {
+            throw new JwtException("JWT token has no subject");
+        }
+
+        UserDetails userDetails;
+        List<?> roles = claims.get(JwtUtil.ROLES_CLAIM, List.class);
+        if (roles == null) {
+            // Tokens issued before roles were signed into them still need the lookup
+            userDetails = userDetailsService.loadUserByUsername(username);
+        } else {
+            if (!Boolean.TRUE.equals(claims.get(JwtUtil.VERIFIED_CLAIM, Boolean.class))) {
+                throw new JwtException("User email is not verified: " + username);
+            }
+            userDetails = User.withUsername(username)
+                    .password("")
+                    .authorities(roles.stream()
+                            .map(role -> new SimpleGrantedAuthority(role.toString()))
+                            .toList())
+                    .build();
+        }
+        return new VerifiedPrincipal(userDetails, claims.getId(), claims.getExpiration().getTime());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -76,4 +143,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
+
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record VerifiedPrincipal(UserDetails userDetails, String jti, long expiresAt) {
+    }
 }
@@ -0,0 +1,182 @@
+package com.springboot.pos.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs sign-in authentication, and with it the BCrypt comparison, on a small
+ * dedicated pool instead of Tomcat request threads, so a login storm can use at
+ * most {@code login.hashing.threads} cores and never holds request threads
+ * while it waits. Attempts beyond the pool and its queue are rejected at once,
+ * and per-account and per-IP token buckets stop repeated attempts before they
+ * reach the pool.
+ *
+ * <p>The per-IP bucket is off unless {@code login.throttle.ip.enabled} is set:
+ * behind a load balancer every request arrives from the balancer's address,
+ * so it only works once the container resolves the client address from
+ * trusted forwarded headers ({@code server.forward-headers-strategy=native}).</p>
+ */
+@Component
+public class LoginExecutor {
+
+    public static class ThrottledException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public ThrottledException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginExecutor.class);
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor executor;
+    private final TokenBucketLimiter accountLimiter;
+    private final TokenBucketLimiter ipLimiter;
+    private final boolean ipThrottleEnabled;
+    private final long timeoutMs;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private volatile long maxHashNanos;
+
+    public LoginExecutor(AuthenticationManager authenticationManager,
+                         @Value("${login.hashing.threads:0}") int threads,
+                         @Value("${login.hashing.queue-capacity:50}") int queueCapacity,
+                         @Value("${login.hashing.timeout-ms:10000}") long timeoutMs,
+                         @Value("${login.throttle.account.capacity:5}") int accountCapacity,
+                         @Value("${login.throttle.account.refill-per-minute:5}") int accountRefillPerMinute,
+                         @Value("${login.throttle.ip.enabled:false}") boolean ipThrottleEnabled,
+                         @Value("${login.throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${login.throttle.ip.refill-per-minute:60}") int ipRefillPerMinute,
+                         @Value("${login.throttle.max-keys:100000}") int maxKeys) {
+        this.authenticationManager = authenticationManager;
+        // Half the cores by default, leaving the rest for checkout
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+        this.accountLimiter = new TokenBucketLimiter(accountCapacity, accountRefillPerMinute, maxKeys);
+        this.ipLimiter = new TokenBucketLimiter(ipCapacity, ipRefillPerMinute, maxKeys);
+        this.ipThrottleEnabled = ipThrottleEnabled;
+    }
+
+    /**
+     * Authenticates on the hashing pool. Completes exceptionally with
+     * {@link ThrottledException} when a bucket is empty or the pool is full,
+     * and with the authentication failure otherwise.
+     */
+    public CompletableFuture<Authentication> authenticate(String usernameOrEmail, String password, String clientIp) {
+        attempts.increment();
+        long ipWait = ipThrottleEnabled ? ipLimiter.tryAcquire(clientIp) : 0;
+        if (ipWait > 0) {
+            throttled.increment();
+            return CompletableFuture.failedFuture(
+                    new ThrottledException("Too many sign-in attempts from this address", ipWait));
+        }
+        long accountWait = accountLimiter.tryAcquire(usernameOrEmail.toLowerCase());
+        if (accountWait > 0) {
+            throttled.increment();
+            return CompletableFuture.failedFuture(
+                    new ThrottledException("Too many sign-in attempts for this account", accountWait));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(usernameOrEmail, password));
+                } finally {
+                    recordHashTime(System.nanoTime() - start);
+                }
+            }, executor).orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("Sign-in pool saturated, rejecting attempt for {}", usernameOrEmail);
+            return CompletableFuture.failedFuture(new ThrottledException("Sign-in is busy, try again shortly", 1));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${login.throttle.sweep-ms:60000}")
+    public void sweepBuckets() {
+        accountLimiter.sweep();
+        ipLimiter.sweep();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getHashCount() {
+        return hashCount.sum();
+    }
+
+    public double getAverageHashMs() {
+        long count = hashCount.sum();
+        return count == 0 ? 0 : hashNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getMaxHashMs() {
+        return maxHashNanos / 1_000_000.0;
+    }
+
+    private void recordHashTime(long nanos) {
+        hashCount.increment();
+        hashNanos.add(nanos);
+        if (nanos > maxHashNanos) {
+            maxHashNanos = nanos;
+        }
+    }
+}
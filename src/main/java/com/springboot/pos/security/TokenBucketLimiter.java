@@ -0,0 +1,103 @@
+package com.springboot.pos.security;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets keyed by string, held in a lock-striped map so concurrent
+ * callers with different keys rarely contend. Buckets that have refilled
+ * completely carry no state worth keeping and are dropped by {@link #sweep}.
+ */
+public class TokenBucketLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final int capacity;
+    private final double tokensPerNano;
+    private final int maxKeysPerStripe;
+    private final Map<String, Bucket>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Takes one token for {@code key}.
+     *
+     * @return 0 if a token was taken, otherwise the seconds until one is available
+     */
+    public long tryAcquire(String key) {
+        Map<String, Bucket> stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            long now = System.nanoTime();
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                if (stripe.size() >= maxKeysPerStripe) {
+                    sweep(stripe, now);
+                }
+                bucket = new Bucket(capacity, now);
+                stripe.put(key, bucket);
+            }
+            bucket.refill(now, capacity, tokensPerNano);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - bucket.tokens) / tokensPerNano / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Map<String, Bucket> stripe : stripes) {
+            synchronized (stripe) {
+                sweep(stripe, now);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Bucket> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private void sweep(Map<String, Bucket> stripe, long now) {
+        Iterator<Bucket> it = stripe.values().iterator();
+        while (it.hasNext()) {
+            Bucket bucket = it.next();
+            bucket.refill(now, capacity, tokensPerNano);
+            if (bucket.tokens >= capacity) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+
+        private void refill(long now, int capacity, double tokensPerNano) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerNano);
+            updatedAt = now;
+        }
+    }
+}
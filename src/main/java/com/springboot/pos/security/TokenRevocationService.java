@@ -0,0 +1,145 @@
+package com.springboot.pos.security;
+
+import com.springboot.pos.model.RevokedToken;
+import com.springboot.pos.repository.RevokedTokenRepository;
+import com.springboot.pos.utils.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revoked JWT ids. The {@code revoked_tokens} table is the exact set; every
+ * node keeps a Bloom filter of it so the common case, a token that was never
+ * revoked, is answered from memory. Only a possible hit goes to the table.
+ *
+ * <p>Rows revoked on other nodes are picked up by polling on
+ * {@code revoked_at}; the filter is rebuilt from the table at startup and
+ * every {@code jwt.revocation.rebuild-ms}, since a Bloom filter cannot forget
+ * the expired rows the cluster-wide purge job removes.</p>
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long pollOverlapMs;
+
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+    private LocalDateTime lastPollAt;
+
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder confirmedHits = new LongAdder();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${jwt.revocation.poll-overlap-ms:10000}") long pollOverlapMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pollOverlapMs = pollOverlapMs;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<String> jtis = revokedTokenRepository.findActiveJtis(startedAt);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, jtis.size() * 2), falsePositiveRate);
+        jtis.forEach(rebuilt::put);
+        filter = rebuilt;
+        lastPollAt = startedAt;
+        ready = true;
+        logger.info("Token revocation filter rebuilt with {} entries", jtis.size());
+    }
+
+    /**
+     * Whether the token with this id was revoked. Costs a few hashes unless the
+     * filter reports a possible hit.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (ready && !filter.mightContain(jti)) {
+            return false;
+        }
+        filterHits.increment();
+        boolean revoked = revokedTokenRepository.existsByJti(jti);
+        if (revoked) {
+            confirmedHits.increment();
+        }
+        return revoked;
+    }
+
+    public void revoke(String jti, LocalDateTime expiresAt) {
+        RevokedToken token = new RevokedToken();
+        token.setJti(jti);
+        token.setExpiresAt(expiresAt);
+        token.setRevokedAt(LocalDateTime.now());
+        try {
+            revokedTokenRepository.save(token);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Token {} was already revoked", jti);
+        }
+        filter.put(jti);
+        logger.info("Revoked token {}", jti);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-ms:1000}")
+    public synchronized void pollRevocations() {
+        if (!ready) {
+            return;
+        }
+        try {
+            // Overlap the previous poll so clock skew and late commits are not missed
+            LocalDateTime now = LocalDateTime.now();
+            List<String> jtis = revokedTokenRepository.findJtisRevokedSince(
+                    lastPollAt.minusNanos(pollOverlapMs * 1_000_000));
+            BloomFilter current = filter;
+            jtis.forEach(current::put);
+            lastPollAt = now;
+        } catch (Exception e) {
+            logger.error("Failed to poll revoked tokens: {}", e.getMessage());
+        }
+    }
+
+    public int purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired revoked tokens", purged);
+        }
+        return purged;
+    }
+
+    // The purge runs on one node, so every node drops expired entries from its own filter here
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-ms:3600000}", fixedDelayString = "${jwt.revocation.rebuild-ms:3600000}")
+    public void rebuildFilter() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Failed to rebuild the token revocation filter: {}", e.getMessage());
+        }
+    }
+
+    public long getFilterHitCount() {
+        return filterHits.sum();
+    }
+
+    public long getConfirmedHitCount() {
+        return confirmedHits.sum();
+    }
+}
@@ -0,0 +1,287 @@
+package com.springboot.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.springboot.pos.model.AuditLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind audit log. Entries are queued in a bounded buffer once the
+ * calling transaction commits, and a background thread inserts them in
+ * multi-row statements when either {@code audit.writer.batch-size} entries are
+ * waiting or {@code audit.writer.flush-interval-ms} has passed.
+ *
+ * <p>{@code AuditLog} uses IDENTITY ids, so Hibernate cannot batch these inserts;
+ * they are written with a plain multi-row INSERT instead.</p>
+ */
+@Service
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SPILL
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_log (entity_type, entity_id, action, user, timestamp, details) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?)";
+
+    // ISO dates so the spill file can be read back without the API date format
+    private static final ObjectMapper SPILL_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<AuditLog> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          @Value("${audit.writer.capacity:10000}") int capacity,
+                          @Value("${audit.writer.batch-size:200}") int batchSize,
+                          @Value("${audit.writer.flush-interval-ms:500}") long flushIntervalMs,
+                          @Value("${audit.writer.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                          @Value("${audit.writer.spill-file:audit-spill.jsonl}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = Paths.get(spillFile);
+    }
+
+    @PostConstruct
+    public void start() {
+        replaySpillFile();
+        running = true;
+        flusher = new Thread(this::runFlusher, "audit-log-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        logger.info("Audit writer stopped - written: {}, dropped: {}, spilled: {}, failed: {}",
+                written.sum(), dropped.sum(), spilled.sum(), failed.sum());
+    }
+
+    /**
+     * Queues an audit entry. Inside a transaction the entry is only queued after
+     * commit, so rolled back work never shows up in the audit trail.
+     */
+    public void write(AuditLog log) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(log);
+                }
+            });
+        } else {
+            enqueue(log);
+        }
+    }
+
+    public long getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private void enqueue(AuditLog log) {
+        if (queue.offer(log)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(log);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case DROP -> {
+                dropped.increment();
+                logger.warn("Audit buffer full, dropped entry for {} {}", log.getEntityType(), log.getEntityId());
+            }
+            case SPILL -> spill(List.of(log));
+        }
+    }
+
+    private void runFlusher() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                drainRemaining(batch);
+                return;
+            }
+        }
+    }
+
+    private void drainRemaining(List<AuditLog> batch) {
+        do {
+            queue.drainTo(batch, batchSize - batch.size());
+            flush(batch);
+            batch.clear();
+        } while (!queue.isEmpty());
+    }
+
+    private void flush(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch);
+            written.add(batch.size());
+        } catch (Exception e) {
+            logger.error("Failed to write {} audit entries: {}", batch.size(), e.getMessage());
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(batch);
+            } else {
+                failed.add(batch.size());
+            }
+        }
+    }
+
+    private void insert(List<AuditLog> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(batch.size() * 6);
+        for (int i = 0; i < batch.size(); i++) {
+            AuditLog log = batch.get(i);
+            sql.append(i == 0 ? "" : ", ").append(ROW_PLACEHOLDER);
+            args.add(log.getEntityType());
+            args.add(log.getEntityId());
+            args.add(log.getAction());
+            args.add(log.getUser());
+            args.add(log.getTimestamp() != null ? Timestamp.valueOf(log.getTimestamp()) : null);
+            args.add(log.getDetails());
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private synchronized void spill(List<AuditLog> logs) {
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (AuditLog log : logs) {
+                writer.write(SPILL_MAPPER.writeValueAsString(log));
+                writer.newLine();
+            }
+            spilled.add(logs.size());
+        } catch (IOException e) {
+            logger.error("Failed to spill {} audit entries to {}: {}", logs.size(), spillFile, e.getMessage());
+            failed.add(logs.size());
+        }
+    }
+
+    private void replaySpillFile() {
+        if (!Files.exists(spillFile)) {
+            return;
+        }
+        // Runs before the flusher starts, so nothing else appends to the file meanwhile
+        try {
+            List<String> lines = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (!line.isBlank()) {
+                    batch.add(SPILL_MAPPER.readValue(line, AuditLog.class));
+                }
+                if (batch.size() >= batchSize || (i == lines.size() - 1 && !batch.isEmpty())) {
+                    insert(batch);
+                    written.add(batch.size());
+                    batch.clear();
+                    // Cut the replayed lines off, so a failure further on does not insert them twice
+                    truncateSpillFile(lines.subList(i + 1, lines.size()));
+                }
+            }
+            Files.deleteIfExists(spillFile);
+            logger.info("Replayed spilled audit entries from {}", spillFile);
+        } catch (Exception e) {
+            logger.error("Failed to replay spilled audit entries from {}: {}", spillFile, e.getMessage());
+        }
+    }
+
+    private void truncateSpillFile(List<String> remaining) throws IOException {
+        Path temp = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+        Files.write(temp, remaining, StandardCharsets.UTF_8);
+        Files.move(temp, spillFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,6 +1,7 @@
 package com.springboot.pos.service;
 
 
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.CustomerDto;
 
 import com.springboot.pos.payload.PagedResponse;
@@ -14,6 +15,8 @@ public interface CustomerService {
 
     PagedResponse<CustomerDto> getAllCustomers(int pageNo, int pageSize, String sortBy, String sortDir);
 
+    CursorResponse<CustomerDto> scrollCustomers(String after, int limit, String sortBy, String sortDir);
+
     CustomerDto getCustomerById(long id);
 
     CustomerDto updateCustomer(CustomerDto customerDto, long id);
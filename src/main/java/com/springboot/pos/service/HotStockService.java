@@ -0,0 +1,545 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.repository.ProductRepository;
+import com.springboot.pos.service.cache.ProductCatalogCache;
+import com.springboot.pos.service.job.ClusterJob;
+import com.springboot.pos.utils.StripedAllotment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory stock for products flagged {@code hot_sku}, so a flash sale does
+ * not queue every checkout on one {@code products} row lock. Each node borrows
+ * units from the row in chunks of {@code stock.hot.chunk-size}, moving them
+ * into {@code reserved_stock}, and hands them to sales from a striped counter.
+ * Borrows run on a single background thread with their own connection, and
+ * checkouts that run short wait up to {@code stock.hot.borrow-timeout-ms} for
+ * the borrow in flight instead of opening a second connection themselves.
+ * Releases go back to the counter, and every {@code stock.hot.flush-ms} idle
+ * quota is given back with one statement per product. Completed sales go
+ * through the inventory ledger like any other.
+ *
+ * <p>A sale's units stay inside {@code reserved_stock} from the borrow until
+ * they are committed or released, so sales reserved here can still be
+ * completed, failed or expired on any node. The free units a node holds are
+ * mirrored in {@code hot_stock_quotas}; when a node stops refreshing its rows
+ * for {@code stock.hot.stale-ms}, a cluster job gives them back.</p>
+ */
+@Service
+public class HotStockService implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockService.class);
+
+    private static final int RECLAIM_BATCH_SIZE = 100;
+
+    private static final String HOT_PRODUCTS_SQL = "SELECT id FROM products WHERE hot_sku = TRUE";
+
+    private static final String LOCK_AVAILABLE_SQL =
+            "SELECT stock - reserved_stock FROM products WHERE id = ? AND hot_sku = TRUE FOR UPDATE";
+
+    private static final String BORROW_SQL =
+            "UPDATE products SET reserved_stock = reserved_stock + ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String ADD_QUOTA_SQL =
+            "INSERT INTO hot_stock_quotas (owner_node, product_id, quantity, updated_at) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP(3)) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), updated_at = CURRENT_TIMESTAMP(3)";
+
+    private static final String RETURN_SQL =
+            "UPDATE products SET reserved_stock = GREATEST(reserved_stock - ?, 0), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?";
+
+    private static final String SYNC_QUOTA_SQL =
+            "UPDATE hot_stock_quotas SET quantity = ?, updated_at = CURRENT_TIMESTAMP(3) " +
+            "WHERE owner_node = ? AND product_id = ?";
+
+    private static final String DELETE_QUOTA_SQL = "DELETE FROM hot_stock_quotas WHERE owner_node = ? AND product_id = ?";
+
+    private static final String STALE_QUOTAS_SQL =
+            "SELECT id FROM hot_stock_quotas WHERE owner_node <> ? " +
+            "AND updated_at < CURRENT_TIMESTAMP(3) - INTERVAL ? MICROSECOND ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService flusher;
+    // Borrows run here, one at a time, and commit on their own whatever becomes of the sale that triggered them
+    private final ExecutorService borrower;
+    private final String nodeId;
+    private final int stripes;
+    private final long flushMs;
+
+    private final Map<Long, Allotment> allotments = new ConcurrentHashMap<>();
+    private volatile Set<Long> hotProducts = Set.of();
+
+    private final LongAdder reservedInMemory = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder borrowedUnits = new LongAdder();
+    private final LongAdder returnedUnits = new LongAdder();
+    private final LongAdder reclaimedUnits = new LongAdder();
+
+    @Value("${stock.hot.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${stock.hot.borrow-timeout-ms:5000}")
+    private long borrowTimeoutMs;
+
+    @Value("${stock.hot.refresh-ms:5000}")
+    private long refreshMs;
+
+    @Value("${stock.hot.idle-ms:30000}")
+    private long idleMs;
+
+    @Value("${stock.hot.stale-ms:60000}")
+    private long staleMs;
+
+    @Value("${stock.hot.reclaim-interval-ms:30000}")
+    private long reclaimIntervalMs;
+
+    public HotStockService(JdbcTemplate jdbcTemplate,
+                           ProductRepository productRepository,
+                           ProductCatalogCache productCatalogCache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${stock.hot.stripes:0}") int stripes,
+                           @Value("${stock.hot.flush-ms:500}") long flushMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.flushMs = flushMs;
+        this.nodeId = defaultNodeId();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hot-stock-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.borrower = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "hot-stock-borrower");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refreshHotProducts();
+        flusher.scheduleWithFixedDelay(this::refreshHotProducts, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        logger.info("Hot stock counters started as {} with {} stripes", nodeId, stripes);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdownNow();
+        borrower.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        borrower.awaitTermination(10, TimeUnit.SECONDS);
+        try {
+            // Hands every free unit back to the products rows
+            flush(true);
+        } catch (Exception e) {
+            logger.warn("Failed to return hot stock quota on shutdown: {}", e.getMessage());
+        }
+    }
+
+    public boolean isHot(long productId) {
+        return hotProducts.contains(productId);
+    }
+
+    /**
+     * Takes {@code quantity} units from this node's allotment, borrowing from
+     * the product row when it runs short. Returns false when the product does
+     * not have that many units left. The units go back to the allotment if
+     * the caller's transaction rolls back.
+     */
+    public boolean reserve(long productId, int quantity) {
+        Allotment allotment = allotment(productId);
+        allotment.lastReservedAt = System.currentTimeMillis();
+        if (!allotment.free.tryTake(quantity) && !borrowAndTake(productId, allotment, quantity)) {
+            rejected.increment();
+            return false;
+        }
+        reservedInMemory.increment();
+        onRollback(() -> allotment.free.add(quantity));
+        return true;
+    }
+
+    /**
+     * Puts the units of a failed sale back into this node's allotment once the
+     * caller's transaction commits.
+     */
+    public void release(long productId, int quantity) {
+        Allotment allotment = allotment(productId);
+        afterCommit(() -> allotment.free.add(quantity));
+    }
+
+    @Override
+    public String getName() {
+        return "hot-stock-reclaim";
+    }
+
+    @Override
+    public long getIntervalMs() {
+        return reclaimIntervalMs;
+    }
+
+    // Gives back quota held by nodes that stopped flushing
+    @Override
+    public int run() {
+        List<Long> stale = jdbcTemplate.queryForList(STALE_QUOTAS_SQL, Long.class, nodeId,
+                TimeUnit.MILLISECONDS.toMicros(staleMs), RECLAIM_BATCH_SIZE);
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        Integer reclaimed = transactionTemplate.execute(status -> reclaim(stale));
+        return reclaimed != null ? reclaimed : 0;
+    }
+
+    public Set<Long> getHotProductIds() {
+        return hotProducts;
+    }
+
+    public int getAllottedUnits() {
+        return allotments.values().stream().mapToInt(allotment -> allotment.free.sum()).sum();
+    }
+
+    public long getReservedInMemoryCount() {
+        return reservedInMemory.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+
+    public long getBorrowedUnitCount() {
+        return borrowedUnits.sum();
+    }
+
+    public long getReturnedUnitCount() {
+        return returnedUnits.sum();
+    }
+
+    public long getReclaimedUnitCount() {
+        return reclaimedUnits.sum();
+    }
+
+    private Allotment allotment(long productId) {
+        return allotments.computeIfAbsent(productId, id -> new Allotment(stripes));
+    }
+
+    private boolean borrowAndTake(long productId, Allotment allotment, int quantity) {
+        // Callers hold their sale's connection, so the row is borrowed on the borrower thread rather
+        // than here; callers short on the same product share one borrow instead of queueing behind it
+        while (true) {
+            if (allotment.free.tryTake(quantity)) {
+                return true;
+            }
+            Borrow borrow = allotment.borrowing.get();
+            if (borrow == null) {
+                Borrow started = new Borrow(quantity, new CompletableFuture<>());
+                if (!allotment.borrowing.compareAndSet(null, started)) {
+                    continue;
+                }
+                try {
+                    borrower.execute(() -> runBorrow(productId, allotment, started));
+                } catch (RejectedExecutionException e) {
+                    allotment.borrowing.compareAndSet(started, null);
+                    throw borrowUnavailable(productId);
+                }
+                borrow = started;
+            }
+            if (awaitBorrow(productId, borrow) == 0 && borrow.quantity() <= quantity) {
+                // The row did not have the borrowed quantity left, let alone ours
+                return false;
+            }
+        }
+    }
+
+    private void runBorrow(long productId, Allotment allotment, Borrow borrow) {
+        try {
+            int granted = borrow(productId, borrow.quantity());
+            if (granted > 0) {
+                allotment.owned = true;
+                allotment.free.add(granted);
+            }
+            // Cleared before completing, so a waiter that still comes up short starts the next borrow
+            allotment.borrowing.compareAndSet(borrow, null);
+            borrow.granted().complete(granted);
+        } catch (RuntimeException e) {
+            allotment.borrowing.compareAndSet(borrow, null);
+            borrow.granted().completeExceptionally(e);
+        }
+    }
+
+    private int awaitBorrow(long productId, Borrow borrow) {
+        try {
+            return borrow.granted().get(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw borrowUnavailable(productId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw borrowUnavailable(productId);
+        }
+    }
+
+    private int borrow(long productId, int quantity) {
+        Integer granted = transactionTemplate.execute(status -> {
+            List<Integer> available = jdbcTemplate.queryForList(LOCK_AVAILABLE_SQL, Integer.class, productId);
+            if (available.isEmpty() || available.get(0) < quantity) {
+                return 0;
+            }
+            // Near the end of the stock only take what the sale needs, so no units sit idle on one node
+            int grant = available.get(0) >= 2 * chunkSize ? Math.max(chunkSize, quantity) : quantity;
+            jdbcTemplate.update(BORROW_SQL, grant, productId);
+            jdbcTemplate.update(ADD_QUOTA_SQL, nodeId, productId, grant);
+            productCatalogCache.evictStock(List.of(productId));
+            return grant;
+        });
+        if (granted != null && granted > 0) {
+            borrows.increment();
+            borrowedUnits.add(granted);
+            return granted;
+        }
+        return 0;
+    }
+
+    private PosApiException borrowUnavailable(long productId) {
+        return new PosApiException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Timed out reserving stock for product " + productId + ", please retry");
+    }
+
+    private void refreshHotProducts() {
+        try {
+            Set<Long> current = new HashSet<>(jdbcTemplate.queryForList(HOT_PRODUCTS_SQL, Long.class));
+            if (!current.equals(hotProducts)) {
+                logger.info("Hot stock products are now {}", current);
+            }
+            hotProducts = Set.copyOf(current);
+        } catch (Exception e) {
+            logger.error("Failed to refresh hot stock products: {}", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        try {
+            flush(false);
+        } catch (Exception e) {
+            logger.error("Hot stock flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void flush(boolean returnAll) {
+        long now = System.currentTimeMillis();
+        Set<Long> hot = hotProducts;
+        SortedMap<Long, Settlement> settlements = new TreeMap<>();
+        for (Map.Entry<Long, Allotment> entry : allotments.entrySet()) {
+            Allotment allotment = entry.getValue();
+            boolean keeping = !returnAll && hot.contains(entry.getKey()) && now - allotment.lastReservedAt < idleMs;
+            int keep = keeping ? chunkSize : 0;
+            int free = allotment.free.sum();
+            int returned = free > keep ? allotment.free.drain(free - keep) : 0;
+            if (returned > 0 || allotment.owned || free > 0) {
+                settlements.put(entry.getKey(), new Settlement(allotment, returned, keeping));
+            }
+        }
+        if (settlements.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> settle(settlements));
+        } catch (RuntimeException e) {
+            for (Settlement settlement : settlements.values()) {
+                settlement.allotment().free.add(settlement.returned());
+            }
+            throw e;
+        }
+        for (Settlement settlement : settlements.values()) {
+            returnedUnits.add(settlement.returned());
+        }
+    }
+
+    private void settle(SortedMap<Long, Settlement> settlements) {
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> updated = new ArrayList<>();
+        for (Map.Entry<Long, Settlement> entry : settlements.entrySet()) {
+            if (entry.getValue().returned() > 0) {
+                updates.add(new Object[]{entry.getValue().returned(), entry.getKey()});
+                updated.add(entry.getKey());
+            }
+        }
+        // Product rows in id order, after which only this node's own quota rows are touched
+        jdbcTemplate.batchUpdate(RETURN_SQL, updates);
+        productCatalogCache.evictStock(updated);
+
+        List<Object[]> syncs = new ArrayList<>();
+        List<Allotment> synced = new ArrayList<>();
+        for (Map.Entry<Long, Settlement> entry : settlements.entrySet()) {
+            Allotment allotment = entry.getValue().allotment();
+            int free = allotment.free.sum();
+            if (!allotment.owned) {
+                if (free > 0) {
+                    // Units released here without a borrow first
+                    jdbcTemplate.update(ADD_QUOTA_SQL, nodeId, entry.getKey(), free);
+                    allotment.owned = true;
+                }
+            } else if (free == 0 && !entry.getValue().keeping()) {
+                jdbcTemplate.update(DELETE_QUOTA_SQL, nodeId, entry.getKey());
+                allotment.owned = false;
+            } else {
+                syncs.add(new Object[]{free, nodeId, entry.getKey()});
+                synced.add(allotment);
+            }
+        }
+        int[] counts = jdbcTemplate.batchUpdate(SYNC_QUOTA_SQL, syncs);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                // Another node reclaimed this quota while we were unresponsive; the units are no longer ours
+                Allotment allotment = synced.get(i);
+                int dropped = allotment.free.drain(Integer.MAX_VALUE);
+                allotment.owned = false;
+                logger.warn("Hot stock quota of {} was reclaimed, dropped {} units", nodeId, dropped);
+            }
+        }
+    }
+
+    private int reclaim(List<Long> quotaIds) {
+        String placeholders = quotaIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        Object[] ids = quotaIds.toArray();
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT DISTINCT product_id FROM hot_stock_quotas " +
+                "WHERE id IN (" + placeholders + ") ORDER BY product_id", Long.class, ids);
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        // Product rows first, the lock order borrowing and flushing take
+        jdbcTemplate.queryForList("SELECT id FROM products WHERE id IN (" +
+                productIds.stream().map(id -> "?").collect(Collectors.joining(", ")) + ") ORDER BY id FOR UPDATE",
+                Long.class, productIds.toArray());
+
+        Object[] args = new Object[ids.length + 1];
+        System.arraycopy(ids, 0, args, 0, ids.length);
+        args[ids.length] = TimeUnit.MILLISECONDS.toMicros(staleMs);
+        SortedMap<Long, Integer> released = new TreeMap<>();
+        List<Object[]> deleted = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, product_id, quantity FROM hot_stock_quotas WHERE id IN (" + placeholders + ") " +
+                "AND updated_at < CURRENT_TIMESTAMP(3) - INTERVAL ? MICROSECOND FOR UPDATE", rs -> {
+            if (rs.getInt("quantity") > 0) {
+                released.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+            }
+            deleted.add(new Object[]{rs.getLong("id")});
+        }, args);
+
+        if (!released.isEmpty()) {
+            productRepository.releaseReservedStock(released);
+            productCatalogCache.evictStock(released.keySet());
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM hot_stock_quotas WHERE id = ?", deleted);
+
+        int units = released.values().stream().mapToInt(Integer::intValue).sum();
+        reclaimedUnits.add(units);
+        if (!deleted.isEmpty()) {
+            logger.warn("Reclaimed {} hot stock units from {} abandoned quotas", units, deleted.size());
+        }
+        return deleted.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static final class Allotment {
+        final StripedAllotment free;
+        volatile long lastReservedAt;
+        // Whether hot_stock_quotas has a row for this node and product
+        volatile boolean owned;
+        final AtomicReference<Borrow> borrowing = new AtomicReference<>();
+
+        Allotment(int stripes) {
+            this.free = new StripedAllotment(stripes);
+        }
+    }
+
+    private record Borrow(int quantity, CompletableFuture<Integer> granted) {
+    }
+
+    private record Settlement(Allotment allotment, int returned, boolean keeping) {
+    }
+}
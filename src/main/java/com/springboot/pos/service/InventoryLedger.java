@@ -0,0 +1,284 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.event.InventoryFoldedEvent;
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.exception.ResourceNotFoundException;
+import com.springboot.pos.model.InventoryMovement;
+import com.springboot.pos.payload.StockLevelDto;
+import com.springboot.pos.service.cache.ProductCatalogCache;
+import com.springboot.pos.service.job.ClusterJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Append-only ledger of stock changes in {@code inventory_movements}. Sales,
+ * restocks and stock-takes only insert rows, so committing a sale never
+ * updates a product row; a cluster job folds the unapplied tail into
+ * {@code products.stock} and {@code reserved_stock} in batches. Units sold stay
+ * in {@code reserved_stock} until they are folded, so available stock is right
+ * throughout while {@code products.stock} trails by up to one compaction.
+ *
+ * <p>Periodic rows in {@code inventory_snapshots} keep point-in-time queries
+ * cheap: the latest snapshot before the requested time plus the movements
+ * created between the two.</p>
+ */
+@Service
+public class InventoryLedger implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_movements (product_id, movement_type, quantity, reserved_quantity, reference_id, " +
+            "note, created_at) VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(3))";
+
+    // For changes the caller has already written to the product row
+    private static final String INSERT_APPLIED_SQL =
+            "INSERT INTO inventory_movements (product_id, movement_type, quantity, reserved_quantity, reference_id, " +
+            "note, created_at, applied_at) VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP(3), CURRENT_TIMESTAMP(3))";
+
+    private static final String TAIL_SQL =
+            "SELECT id, product_id, quantity, reserved_quantity FROM inventory_movements " +
+            "WHERE applied_at IS NULL ORDER BY id LIMIT ?";
+
+    private static final String MARK_APPLIED_SQL =
+            "UPDATE inventory_movements SET applied_at = CURRENT_TIMESTAMP(3) WHERE id = ? AND applied_at IS NULL";
+
+    private static final String FOLD_SQL =
+            "UPDATE products SET stock = stock + ?, reserved_stock = GREATEST(reserved_stock - ?, 0), " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String CURRENT_STOCK_SQL =
+            "SELECT p.stock + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m " +
+            "WHERE m.product_id = p.id AND m.applied_at IS NULL), 0) FROM products p WHERE p.id = ?";
+
+    private static final String SNAPSHOT_TIME_SQL = "SELECT CURRENT_TIMESTAMP(3) - INTERVAL ? MICROSECOND";
+
+    // One consistent read of the product rows and both tails
+    private static final String SNAPSHOT_SOURCE_SQL =
+            "SELECT p.id, p.stock + COALESCE(t.quantity, 0) - COALESCE(r.quantity, 0) AS stock FROM products p " +
+            "LEFT JOIN (SELECT product_id, SUM(quantity) AS quantity FROM inventory_movements " +
+            "WHERE applied_at IS NULL GROUP BY product_id) t ON t.product_id = p.id " +
+            "LEFT JOIN (SELECT product_id, SUM(quantity) AS quantity FROM inventory_movements " +
+            "WHERE created_at > ? GROUP BY product_id) r ON r.product_id = p.id";
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO inventory_snapshots (product_id, stock, taken_at) VALUES (?, ?, ?)";
+
+    private static final String INSERT_OPENING_SNAPSHOT_SQL =
+            "INSERT INTO inventory_snapshots (product_id, stock, taken_at) VALUES (?, ?, CURRENT_TIMESTAMP(3))";
+
+    private static final String LATEST_SNAPSHOT_SQL =
+            "SELECT stock, taken_at FROM inventory_snapshots WHERE product_id = ? AND taken_at <= ? " +
+            "ORDER BY taken_at DESC LIMIT 1";
+
+    private static final String DELTA_SQL =
+            "SELECT COALESCE(SUM(quantity), 0) FROM inventory_movements " +
+            "WHERE product_id = ? AND created_at > ? AND created_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCatalogCache productCatalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder folded = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    @Value("${stock.ledger.compact-ms:2000}")
+    private long compactIntervalMs;
+
+    @Value("${stock.ledger.batch-size:500}")
+    private int batchSize;
+
+    @Value("${stock.ledger.max-per-run:10000}")
+    private int maxPerRun;
+
+    // Movements still in flight when a snapshot is taken would be missing from it
+    @Value("${stock.ledger.snapshot-lag-ms:60000}")
+    private long snapshotLagMs;
+
+    public InventoryLedger(JdbcTemplate jdbcTemplate,
+                           ProductCatalogCache productCatalogCache,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productCatalogCache = productCatalogCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Appends the units a sale took. Joins the sale's transaction; the units
+     * leave {@code stock} and {@code reserved_stock} when folded.
+     */
+    public void recordSale(Long saleId, Map<Long, Integer> quantities) {
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            rows.add(new Object[]{entry.getKey(), InventoryMovement.SALE, -entry.getValue(), entry.getValue(), saleId, null});
+        }
+        append(INSERT_SQL, rows);
+    }
+
+    /**
+     * Records holds the caller has just given back to {@code reserved_stock}.
+     */
+    public void recordRelease(Long saleId, Map<Long, Integer> quantities) {
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            rows.add(new Object[]{entry.getKey(), InventoryMovement.RELEASE, 0, entry.getValue(), saleId, null});
+        }
+        append(INSERT_APPLIED_SQL, rows);
+    }
+
+    /**
+     * Appends a change to on-hand stock, folded with the rest of the tail.
+     */
+    public void record(long productId, String movementType, int quantity, String note) {
+        List<Object[]> rows = new ArrayList<>(1);
+        rows.add(new Object[]{productId, movementType, quantity, 0, null, note});
+        append(INSERT_SQL, rows);
+    }
+
+    public int currentStock(long productId) {
+        List<Integer> stock = jdbcTemplate.queryForList(CURRENT_STOCK_SQL, Integer.class, productId);
+        if (stock.isEmpty()) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        return stock.get(0);
+    }
+
+    /**
+     * Opening snapshot for a product created with {@code stock} units.
+     */
+    public void snapshot(long productId, int stock) {
+        jdbcTemplate.update(INSERT_OPENING_SNAPSHOT_SQL, productId, stock);
+        snapshots.increment();
+    }
+
+    public StockLevelDto stockAt(long productId, LocalDateTime at) {
+        List<StockLevelDto> latest = jdbcTemplate.query(LATEST_SNAPSHOT_SQL, (rs, rowNum) ->
+                new StockLevelDto(productId, rs.getInt("stock"), at, rs.getTimestamp("taken_at").toLocalDateTime()),
+                productId, Timestamp.valueOf(at));
+        if (latest.isEmpty()) {
+            throw new PosApiException(HttpStatus.NOT_FOUND, "No stock history for product " + productId + " before " + at);
+        }
+        StockLevelDto level = latest.get(0);
+        Integer delta = jdbcTemplate.queryForObject(DELTA_SQL, Integer.class, productId,
+                Timestamp.valueOf(level.getSnapshotTakenAt()), Timestamp.valueOf(at));
+        level.setStock(level.getStock() + (delta != null ? delta : 0));
+        return level;
+    }
+
+    @Override
+    public String getName() {
+        return "inventory-compaction";
+    }
+
+    @Override
+    public long getIntervalMs() {
+        return compactIntervalMs;
+    }
+
+    @Override
+    public int run() {
+        int total = 0;
+        int batch;
+        do {
+            SortedMap<Long, int[]> changes = new TreeMap<>();
+            Integer claimed = transactionTemplate.execute(status -> fold(changes));
+            batch = claimed != null ? claimed : 0;
+            total += batch;
+            if (!changes.isEmpty()) {
+                eventPublisher.publishEvent(new InventoryFoldedEvent(changes.keySet()));
+            }
+        } while (batch == batchSize && total < maxPerRun);
+        return total;
+    }
+
+    /**
+     * Writes a snapshot of every product as of {@code stock.ledger.snapshot-lag-ms} ago.
+     */
+    public int takeSnapshots() {
+        Timestamp takenAt = jdbcTemplate.queryForObject(SNAPSHOT_TIME_SQL, Timestamp.class,
+                TimeUnit.MILLISECONDS.toMicros(snapshotLagMs));
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query(SNAPSHOT_SOURCE_SQL, rs -> {
+            rows.add(new Object[]{rs.getLong("id"), rs.getInt("stock"), takenAt});
+        }, takenAt);
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+        snapshots.add(rows.size());
+        logger.info("Took inventory snapshots of {} products as of {}", rows.size(), takenAt);
+        return rows.size();
+    }
+
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    public long getFoldedCount() {
+        return folded.sum();
+    }
+
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    private void append(String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows);
+        appended.add(rows.size());
+    }
+
+    private int fold(SortedMap<Long, int[]> changes) {
+        List<long[]> tail = jdbcTemplate.query(TAIL_SQL, (rs, rowNum) -> new long[]{
+                rs.getLong("id"), rs.getLong("product_id"), rs.getInt("quantity"), rs.getInt("reserved_quantity")
+        }, batchSize);
+        if (tail.isEmpty()) {
+            return 0;
+        }
+
+        // Claimed first, so a run that overlaps a lease handover cannot fold a movement twice
+        List<Object[]> ids = new ArrayList<>(tail.size());
+        for (long[] movement : tail) {
+            ids.add(new Object[]{movement[0]});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(MARK_APPLIED_SQL, ids);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            long[] movement = tail.get(i);
+            int[] change = changes.computeIfAbsent(movement[1], id -> new int[2]);
+            change[0] += (int) movement[2];
+            change[1] += (int) movement[3];
+        }
+
+        // Product rows in id order, like every other stock update
+        List<Object[]> updates = new ArrayList<>(changes.size());
+        for (Map.Entry<Long, int[]> entry : changes.entrySet()) {
+            updates.add(new Object[]{entry.getValue()[0], entry.getValue()[1], entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate(FOLD_SQL, updates);
+        productCatalogCache.evictStock(changes.keySet());
+        folded.add(tail.size());
+        return tail.size();
+    }
+}
@@ -0,0 +1,268 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.event.InventoryFoldedEvent;
+import com.springboot.pos.payload.ProductStockLevel;
+import com.springboot.pos.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Sends low-stock and reorder emails off the stock update path. Products whose
+ * stock changed are queued in a set, so repeated changes to one product within
+ * {@code stock.alerts.digest-interval-ms} coalesce into a single check. Each
+ * interval a background thread reads the current levels of the queued
+ * products and sends one admin digest and one purchasing digest for all of
+ * them.
+ *
+ * <p>A product is reported once per shortage: once the admin digest listing it
+ * has been sent a row is inserted in {@code low_stock_alerts}, and once its
+ * reorder has gone to purchasing a row is inserted in
+ * {@code low_stock_reorders}. Each row suppresses its own email until a later
+ * check finds the product back at or above its threshold. When one email
+ * fails only its rows are missing, so the next digest retries that email
+ * alone. Two nodes checking the same product at once may both report it; a
+ * duplicate email is preferred over a lost one.</p>
+ */
+@Service
+public class LowStockAlertDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockAlertDispatcher.class);
+
+    private static final String ALERTED_SQL = "SELECT product_id FROM low_stock_alerts WHERE product_id IN (%s)";
+
+    private static final String CLAIM_ALERT_SQL =
+            "INSERT IGNORE INTO low_stock_alerts (product_id, alerted_at) VALUES (?, CURRENT_TIMESTAMP(3))";
+
+    private static final String CLEAR_ALERT_SQL = "DELETE FROM low_stock_alerts WHERE product_id = ?";
+
+    private static final String REORDERED_SQL = "SELECT product_id FROM low_stock_reorders WHERE product_id IN (%s)";
+
+    private static final String CLAIM_REORDER_SQL =
+            "INSERT IGNORE INTO low_stock_reorders (product_id, sent_at) VALUES (?, CURRENT_TIMESTAMP(3))";
+
+    private static final String CLEAR_REORDER_SQL = "DELETE FROM low_stock_reorders WHERE product_id = ?";
+
+    private final ProductRepository productRepository;
+    private final NotificationService notificationService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService sender;
+    private final long digestIntervalMs;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder digests = new LongAdder();
+    private final LongAdder alerted = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder cleared = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LowStockAlertDispatcher(ProductRepository productRepository,
+                                   NotificationService notificationService,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${stock.alerts.digest-interval-ms:60000}") long digestIntervalMs) {
+        this.productRepository = productRepository;
+        this.notificationService = notificationService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.digestIntervalMs = digestIntervalMs;
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "low-stock-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sender.scheduleWithFixedDelay(this::dispatch, digestIntervalMs, digestIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        sender.shutdownNow();
+        sender.awaitTermination(10, TimeUnit.SECONDS);
+        // Products still queued here are checked again the next time their stock changes
+        logger.info("Low stock alerts stopped - digests: {}, alerted: {}, suppressed: {}, pending: {}",
+                digests.sum(), alerted.sum(), suppressed.sum(), pending.size());
+    }
+
+    /**
+     * Queues products whose stock changed for the next digest. Never blocks.
+     */
+    public void submit(Collection<Long> productIds) {
+        pending.addAll(productIds);
+        submitted.add(productIds.size());
+    }
+
+    @EventListener
+    public void onInventoryFolded(InventoryFoldedEvent event) {
+        submit(event.getProductIds());
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getDigestCount() {
+        return digests.sum();
+    }
+
+    public long getAlertedCount() {
+        return alerted.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    public long getClearedCount() {
+        return cleared.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private void dispatch() {
+        Set<Long> productIds = new HashSet<>();
+        for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+            productIds.add(it.next());
+            it.remove();
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        try {
+            sendDigest(productIds);
+        } catch (Exception e) {
+            // Checked again with the next batch rather than lost
+            pending.addAll(productIds);
+            logger.error("Low stock digest for {} products failed: {}", productIds.size(), e.getMessage());
+        }
+    }
+
+    private void sendDigest(Set<Long> productIds) {
+        List<ProductStockLevel> low = productRepository.findLowStockLevels(productIds);
+
+        // Products no longer low have been restocked, so their next shortage is reported again
+        Set<Long> recovered = new HashSet<>(productIds);
+        low.forEach(product -> recovered.remove(product.getId()));
+        if (!recovered.isEmpty()) {
+            List<Object[]> ids = recovered.stream().map(id -> new Object[]{id}).toList();
+            for (int count : jdbcTemplate.batchUpdate(CLEAR_ALERT_SQL, ids)) {
+                cleared.add(Math.max(count, 0));
+            }
+            jdbcTemplate.batchUpdate(CLEAR_REORDER_SQL, ids);
+        }
+        if (low.isEmpty()) {
+            return;
+        }
+
+        Object[] lowIds = low.stream().map(ProductStockLevel::getId).toArray();
+        String placeholders = low.stream().map(product -> "?").collect(Collectors.joining(", "));
+        Set<Long> alertedIds = new HashSet<>(jdbcTemplate.queryForList(String.format(ALERTED_SQL, placeholders),
+                Long.class, lowIds));
+        Set<Long> reorderedIds = new HashSet<>(jdbcTemplate.queryForList(String.format(REORDERED_SQL, placeholders),
+                Long.class, lowIds));
+        List<ProductStockLevel> alertDue = new ArrayList<>();
+        List<ProductStockLevel> reorderDue = new ArrayList<>();
+        for (ProductStockLevel product : low) {
+            boolean alert = !alertedIds.contains(product.getId());
+            boolean reorder = !reorderedIds.contains(product.getId()) && needsReorder(product);
+            if (alert) {
+                alertDue.add(product);
+            }
+            if (reorder) {
+                reorderDue.add(product);
+            }
+            if (!alert && !reorder) {
+                suppressed.increment();
+            }
+        }
+
+        // Each email is recorded only once sent, so a mail outage delays it instead of losing it,
+        // and a failure of one never resends the other
+        boolean sent = true;
+        if (!alertDue.isEmpty()) {
+            if (notificationService.notifyAdmin(lowStockDigest(alertDue))) {
+                claim(CLAIM_ALERT_SQL, alertDue);
+                digests.increment();
+                alerted.add(alertDue.size());
+            } else {
+                failed.increment();
+                sent = false;
+            }
+        }
+        if (!reorderDue.isEmpty()) {
+            if (notificationService.notifyPurchasing(reorderDigest(reorderDue))) {
+                claim(CLAIM_REORDER_SQL, reorderDue);
+                digests.increment();
+            } else {
+                failed.increment();
+                sent = false;
+            }
+        }
+        if (!sent) {
+            throw new IllegalStateException("mail not sent, retrying with the next digest");
+        }
+    }
+
+    private void claim(String sql, List<ProductStockLevel> products) {
+        jdbcTemplate.batchUpdate(sql, products.stream().map(product -> new Object[]{product.getId()}).toList());
+    }
+
+    private static String lowStockDigest(List<ProductStockLevel> products) {
+        StringBuilder message = new StringBuilder(String.format(
+                "Low stock alert: %d product(s) below threshold%n", products.size()));
+        for (ProductStockLevel product : products) {
+            message.append(String.format("- %s (ID: %d): current stock %d, threshold %d%n",
+                    product.getName(), product.getId(), product.getStock(), product.getLowStockThreshold()));
+        }
+        return message.toString();
+    }
+
+    private static String reorderDigest(List<ProductStockLevel> products) {
+        StringBuilder message = new StringBuilder(String.format("Auto-generated reorders (%d)%n", products.size()));
+        for (ProductStockLevel product : products) {
+            message.append(String.format("- %s: %d units to %s%n",
+                    product.getName(), calculateReorderQuantity(product), product.getSupplierName()));
+        }
+        return message.toString();
+    }
+
+    private static boolean needsReorder(ProductStockLevel product) {
+        return product.getSupplierName() != null && calculateReorderQuantity(product) > 0;
+    }
+
+    private static int calculateReorderQuantity(ProductStockLevel product) {
+        int targetStock = product.getLowStockThreshold() * 2;
+        int suggestedOrder = targetStock - product.getStock();
+        if (product.getLowStockMinimumOrder() > 0) {
+            return Math.max(suggestedOrder, product.getLowStockMinimumOrder());
+        }
+        return suggestedOrder;
+    }
+}
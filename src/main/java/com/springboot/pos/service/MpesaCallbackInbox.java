@@ -0,0 +1,297 @@
+package com.springboot.pos.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable inbox for M-Pesa callbacks. The callback endpoint only appends the
+ * raw payload to {@code mpesa_callback_inbox}; a dispatcher thread claims
+ * pending rows in batches and hands them to a fixed set of single-threaded
+ * workers, picked by CheckoutRequestID so callbacks for one payment are
+ * applied in arrival order. Failed rows are retried with a growing delay, and
+ * rows claimed by a node that died become claimable again after
+ * {@code mpesa.callback.claim-timeout-ms}.
+ */
+@Service
+public class MpesaCallbackInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(MpesaCallbackInbox.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO mpesa_callback_inbox (checkout_requestid, payload, status, attempts, received_at, available_at) " +
+            "VALUES (?, ?, 'RECEIVED', 0, CURRENT_TIMESTAMP(3), CURRENT_TIMESTAMP(3))";
+
+    // Claims RECEIVED rows and PROCESSING rows whose claim has lapsed
+    private static final String CLAIM_SQL =
+            "UPDATE mpesa_callback_inbox SET status = 'PROCESSING', claimed_by = ?, " +
+            "available_at = CURRENT_TIMESTAMP(3) + INTERVAL ? MICROSECOND " +
+            "WHERE status IN ('RECEIVED', 'PROCESSING') AND available_at <= CURRENT_TIMESTAMP(3) " +
+            "ORDER BY id LIMIT ?";
+
+    private static final String SELECT_CLAIMED_SQL =
+            "SELECT id, checkout_requestid, payload, attempts FROM mpesa_callback_inbox " +
+            "WHERE status = 'PROCESSING' AND claimed_by = ? ORDER BY id";
+
+    private static final String MARK_PROCESSED_SQL =
+            "UPDATE mpesa_callback_inbox SET status = 'PROCESSED', processed_at = CURRENT_TIMESTAMP(3), " +
+            "attempts = attempts + 1, claimed_by = NULL WHERE id = ? AND claimed_by = ?";
+
+    private static final String MARK_RETRY_SQL =
+            "UPDATE mpesa_callback_inbox SET status = ?, attempts = attempts + 1, last_error = ?, " +
+            "available_at = CURRENT_TIMESTAMP(3) + INTERVAL ? MICROSECOND, claimed_by = NULL " +
+            "WHERE id = ? AND claimed_by = ?";
+
+    // Rows not yet processed, across all nodes; served by the (status, available_at) index
+    private static final String BACKLOG_SQL =
+            "SELECT COUNT(*) FROM mpesa_callback_inbox WHERE status IN ('RECEIVED', 'PROCESSING')";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM mpesa_callback_inbox WHERE status = 'PROCESSED' AND processed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MpesaPaymentService mpesaPaymentService;
+    private final ExecutorService[] stripes;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long claimTimeoutMs;
+    private final long retryDelayMs;
+    private final int maxAttempts;
+
+    private final Semaphore wakeup = new Semaphore(0);
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Value("${mpesa.callback.retention-days:7}")
+    private long retentionDays;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public MpesaCallbackInbox(JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              MpesaPaymentService mpesaPaymentService,
+                              @Value("${mpesa.callback.workers:4}") int workers,
+                              @Value("${mpesa.callback.batch-size:100}") int batchSize,
+                              @Value("${mpesa.callback.poll-interval-ms:1000}") long pollIntervalMs,
+                              @Value("${mpesa.callback.claim-timeout-ms:60000}") long claimTimeoutMs,
+                              @Value("${mpesa.callback.retry-delay-ms:2000}") long retryDelayMs,
+                              @Value("${mpesa.callback.max-attempts:10}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.mpesaPaymentService = mpesaPaymentService;
+        this.stripes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            int stripe = i;
+            stripes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "mpesa-callback-" + stripe);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.retryDelayMs = retryDelayMs;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Started once the schema is in place; rows left over from a restart are picked up by the first poll
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "mpesa-callback-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        wakeup.release();
+        if (dispatcher != null) {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        logger.info("Callback inbox stopped - accepted: {}, processed: {}, retried: {}, failed: {}",
+                accepted.sum(), processed.sum(), retried.sum(), failed.sum());
+    }
+
+    /**
+     * Stores a callback for asynchronous processing. Once this returns the
+     * callback is durable and can be acknowledged to Safaricom.
+     */
+    public void accept(Map<String, Object> callbackData) throws Exception {
+        jdbcTemplate.update(INSERT_SQL, checkoutRequestId(callbackData), objectMapper.writeValueAsString(callbackData));
+        accepted.increment();
+        wakeup.release();
+    }
+
+    public int purgeProcessed() {
+        int purged = jdbcTemplate.update(PURGE_SQL, LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            logger.info("Purged {} processed M-Pesa callbacks", purged);
+        }
+        return purged;
+    }
+
+    public long getBacklog() {
+        Long backlog = jdbcTemplate.queryForObject(BACKLOG_SQL, Long.class);
+        return backlog != null ? backlog : 0L;
+    }
+
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    private void runDispatcher() {
+        while (running) {
+            try {
+                int claimed = dispatchBatch();
+                // A full batch means more are waiting; otherwise sleep until a callback arrives
+                if (claimed < batchSize) {
+                    wakeup.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeup.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Callback dispatch failed: {}", e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        String claimToken = UUID.randomUUID().toString();
+        int claimed = jdbcTemplate.update(CLAIM_SQL, claimToken, TimeUnit.MILLISECONDS.toMicros(claimTimeoutMs), batchSize);
+        if (claimed == 0) {
+            return 0;
+        }
+
+        List<CompletableFuture<Outcome>> outcomes = new ArrayList<>(claimed);
+        jdbcTemplate.query(SELECT_CLAIMED_SQL, rs -> {
+            ClaimedCallback callback = new ClaimedCallback(rs.getLong("id"), rs.getString("checkout_requestid"),
+                    rs.getString("payload"), rs.getInt("attempts"));
+            // Rows arrive in id order, so each stripe applies its callbacks in arrival order
+            outcomes.add(CompletableFuture.supplyAsync(() -> apply(callback), stripeFor(callback.checkoutRequestId())));
+        }, claimToken);
+
+        List<Object[]> done = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        for (CompletableFuture<Outcome> future : outcomes) {
+            Outcome outcome = future.join();
+            if (outcome.error() == null) {
+                done.add(new Object[]{outcome.id(), claimToken});
+                continue;
+            }
+            boolean giveUp = outcome.permanent() || outcome.attempts() + 1 >= maxAttempts;
+            if (giveUp) {
+                failed.increment();
+                logger.error("Giving up on M-Pesa callback {}: {}", outcome.id(), outcome.error());
+            } else {
+                retried.increment();
+            }
+            retries.add(new Object[]{
+                    giveUp ? "FAILED" : "RECEIVED",
+                    truncate(outcome.error()),
+                    TimeUnit.MILLISECONDS.toMicros(retryDelayMs * (outcome.attempts() + 1)),
+                    outcome.id(),
+                    claimToken
+            });
+        }
+        if (!done.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_PROCESSED_SQL, done);
+            processed.add(done.size());
+        }
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_RETRY_SQL, retries);
+        }
+        return claimed;
+    }
+
+    private Outcome apply(ClaimedCallback callback) {
+        try {
+            Map<String, Object> callbackData = objectMapper.readValue(callback.payload(), new TypeReference<>() {
+            });
+            mpesaPaymentService.applyCallback(callbackData);
+            return new Outcome(callback.id(), callback.attempts(), null, false);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return new Outcome(callback.id(), callback.attempts(), e.getMessage(), true);
+        } catch (Exception e) {
+            logger.warn("M-Pesa callback {} failed, will retry: {}", callback.id(), e.getMessage());
+            return new Outcome(callback.id(), callback.attempts(), String.valueOf(e.getMessage()), false);
+        }
+    }
+
+    private ExecutorService stripeFor(String checkoutRequestId) {
+        int hash = checkoutRequestId != null ? checkoutRequestId.hashCode() : 0;
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private static String checkoutRequestId(Map<String, Object> callbackData) {
+        if (callbackData != null && callbackData.get("Body") instanceof Map<?, ?> body
+                && body.get("stkCallback") instanceof Map<?, ?> stkCallback
+                && stkCallback.get("CheckoutRequestID") instanceof String checkoutRequestId) {
+            return checkoutRequestId;
+        }
+        return null;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return "unknown error";
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private record ClaimedCallback(long id, String checkoutRequestId, String payload, int attempts) {
+    }
+
+    private record Outcome(long id, int attempts, String error, boolean permanent) {
+    }
+}
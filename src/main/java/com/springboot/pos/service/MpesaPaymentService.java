@@ -1,35 +1,36 @@
 package com.springboot.pos.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.pos.event.PaymentResolvedEvent;
 import com.springboot.pos.model.Sale;
 import com.springboot.pos.model.Transaction;
 import com.springboot.pos.repository.TransactionRepository;
+import com.springboot.pos.service.PaymentCompletionRegistry.PaymentOutcome;
+import com.springboot.pos.service.PaymentGatewayClient.Endpoint;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class MpesaPaymentService {
     private static final Logger logger = LoggerFactory.getLogger(MpesaPaymentService.class);
 
-    @Value("${mpesa.env}")
-    private String env;
-
-    @Value("${mpesa.consumer.key}")
-    private String consumerKey;
-
-    @Value("${mpesa.consumer.secret}")
-    private String consumerSecret;
+    private static final String STILL_PROCESSING_ERROR_CODE = "500.001.1001";
 
     @Value("${mpesa.shortcode}")
     private String shortcode;
@@ -43,16 +44,25 @@ public class MpesaPaymentService {
     @Value("${mpesa.timeout.seconds:180}")
     private int paymentTimeout;
 
-    private final RestTemplate restTemplate;
+    private final PaymentGatewayClient paymentGatewayClient;
     private final TransactionRepository transactionRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MpesaTokenManager mpesaTokenManager;
+    private final PaymentCompletionRegistry paymentCompletionRegistry;
 
-    public MpesaPaymentService(RestTemplate restTemplate,
+    public MpesaPaymentService(PaymentGatewayClient paymentGatewayClient,
                                TransactionRepository transactionRepository,
-                               ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               MpesaTokenManager mpesaTokenManager,
+                               PaymentCompletionRegistry paymentCompletionRegistry) {
+        this.paymentGatewayClient = paymentGatewayClient;
         this.transactionRepository = transactionRepository;
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.mpesaTokenManager = mpesaTokenManager;
+        this.paymentCompletionRegistry = paymentCompletionRegistry;
     }
 
 
@@ -61,10 +71,10 @@ public class MpesaPaymentService {
                                        String currency, String transactionDesc,
                                        Sale sale) throws Exception {
         try {
-            String accessToken = generateAccessToken();
             Transaction transaction = createTransactionRecord(amount, phoneNumber, currency, sale);
             Map<String, Object> stkPushRequest = prepareStkPushRequest(amount, phoneNumber, transactionDesc);
-            Map<String, Object> response = sendStkPushRequest(accessToken, stkPushRequest);
+            Map<String, Object> response = callWithAccessToken(
+                    accessToken -> sendStkPushRequest(accessToken, stkPushRequest));
             Transaction updatedTransaction = updateTransactionWithResponse(transaction, response);
             return updatedTransaction;
         } catch (Exception e) {
@@ -74,30 +84,31 @@ public class MpesaPaymentService {
 
 
 
+    /**
+     * Waits for the payment's callback, here or on another node. Only when none
+     * arrives within the timeout is the status queried from M-Pesa, once.
+     */
     public boolean confirmPayment(Transaction transaction, int timeoutSeconds) throws InterruptedException {
-        long pollInterval = 5; // seconds
-        int maxAttempts = timeoutSeconds / (int) pollInterval;
-
-        for (int i = 0; i < maxAttempts; i++) {
-            Transaction updated = transactionRepository.findById(transaction.getId())
-                    .orElseThrow(() -> new IllegalStateException("Transaction not found"));
-
-            if ("SUCCESS".equals(updated.getStatus())) {
+        String checkoutRequestId = transaction.getCheckoutRequestId();
+        CompletableFuture<PaymentOutcome> completion = paymentCompletionRegistry.register(checkoutRequestId);
+        try {
+            PaymentOutcome outcome = completion.get(timeoutSeconds, TimeUnit.SECONDS);
+            applyOutcome(transaction, outcome);
+            if ("SUCCESS".equals(outcome.status())) {
                 logger.info("Payment confirmed for transaction: {}", transaction.getId());
                 return true;
             }
-            if ("FAILED".equals(updated.getStatus())) {
-                return false;
-            }
-
-            if (i == maxAttempts - 1) {
-                boolean isPaid = checkPaymentStatus(updated.getCheckoutRequestId());
-                if (isPaid) {
-                    return true;
-                }
-            }
+            return false;
+        } catch (TimeoutException e) {
+            logger.info("No callback within {}s for transaction {}, querying status", timeoutSeconds, transaction.getId());
+        } catch (ExecutionException e) {
+            logger.error("Waiting for payment of transaction {} failed: {}", transaction.getId(), e.getMessage());
+        } finally {
+            paymentCompletionRegistry.unregister(checkoutRequestId, completion);
+        }
 
-            TimeUnit.SECONDS.sleep(pollInterval);
+        if (checkPaymentStatus(checkoutRequestId)) {
+            return true;
         }
 
         logger.warn("Payment timed out for transaction: {}", transaction.getId());
@@ -107,34 +118,79 @@ public class MpesaPaymentService {
         return false;
     }
 
-    //!!!! important - for reconciling pendingTransactions. check date - 9/05/25 commits
-
+    // The waiting checkout may still hold the transaction uncommitted, so it records the outcome itself
+    private void applyOutcome(Transaction transaction, PaymentOutcome outcome) {
+        if (!"PENDING".equals(transaction.getStatus()) && !"TIMEOUT".equals(transaction.getStatus())) {
+            return;
+        }
+        transaction.setStatus(outcome.status());
+        transaction.setResultCode(outcome.resultCode());
+        transaction.setResultDesc(outcome.resultDesc());
+        if (outcome.receiptNumber() != null) {
+            transaction.setTransactionId(outcome.receiptNumber());
+        }
+        transaction.setUpdatedAt(LocalDateTime.now());
+        transactionRepository.save(transaction);
+    }
 
-    public void handleCallback(Map<String, Object> callbackData) {
-        try {
-            logger.info("Received callback payload: {}", objectMapper.writeValueAsString(callbackData));
+    //!!!! important - for reconciling pendingTransactions. check date - 9/05/25 commits
 
-            // 1. Validate callback structure
-            validateCallbackStructure(callbackData);
 
-            // 2. Extract callback data
-            Map<String, Object> stkCallback = extractCallbackData(callbackData);
-            String checkoutRequestId = (String) stkCallback.get("CheckoutRequestID");
+    /**
+     * Applies one callback taken from the inbox. Payloads that can never be
+     * applied throw {@link IllegalArgumentException}; any other exception
+     * leaves the callback to be retried. Redelivered callbacks are no-ops.
+     */
+    @Transactional
+    public void applyCallback(Map<String, Object> callbackData) {
+        validateCallbackStructure(callbackData);
+        Map<String, Object> stkCallback = extractCallbackData(callbackData);
+        String checkoutRequestId = (String) stkCallback.get("CheckoutRequestID");
 
-            // 3. Find transaction with retries - refactor this part - repeated
-            Transaction transaction = null;
-            if (transaction == null) {
-                logger.warn("No transaction found for CheckoutRequestID: {} after retries", checkoutRequestId);
-                return;
+        String resultCode = String.valueOf(stkCallback.get("ResultCode"));
+        String resultDesc = (String) stkCallback.get("ResultDesc");
+        String status = "0".equals(resultCode) ? "SUCCESS" : "FAILED";
+        String receiptNumber = null;
+        if ("0".equals(resultCode)) {
+            Map<String, Object> callbackMetadata = (Map<String, Object>) stkCallback.get("CallbackMetadata");
+            if (callbackMetadata != null && callbackMetadata.containsKey("Item")) {
+                receiptNumber = receiptNumber(callbackMetadata);
+            } else {
+                logger.warn("Missing callback metadata for successful transaction");
             }
+        }
 
-            updateTransactionFromCallback(transaction, stkCallback);
+        // Wakes a checkout waiting on this payment, which may not have committed its transaction yet
+        paymentCompletionRegistry.signal(checkoutRequestId,
+                new PaymentOutcome(status, resultCode, resultDesc, receiptNumber));
 
-            logger.info("Successfully processed callback for transaction: {}", transaction.getId());
-        } catch (Exception e) {
-            logger.error("Callback failed: {}");
+        // The callback can beat the commit of initiatePayment, so an unknown id is retried
+        Transaction transaction = transactionRepository.findByCheckoutRequestId(checkoutRequestId)
+                .orElseThrow(() -> new IllegalStateException("No transaction found for CheckoutRequestID: " + checkoutRequestId));
+
+        int updated = transactionRepository.resolveIfOpen(transaction.getId(), status, resultCode, resultDesc,
+                receiptNumber, LocalDateTime.now());
+        if (updated == 0) {
+            logger.info("Ignoring duplicate callback for transaction: {}", transaction.getId());
+            return;
         }
+
+        eventPublisher.publishEvent(new PaymentResolvedEvent(
+                transaction.getId(),
+                transaction.getSale() != null ? transaction.getSale().getId() : null,
+                status
+        ));
+        logger.info("Successfully processed callback for transaction: {}", transaction.getId());
+    }
+
+    private void publishResolution(Transaction transaction) {
+        eventPublisher.publishEvent(new PaymentResolvedEvent(
+                transaction.getId(),
+                transaction.getSale() != null ? transaction.getSale().getId() : null,
+                transaction.getStatus()
+        ));
     }
+
     private Transaction createTransactionRecord(double amount, String phoneNumber,
                                                 String currency, Sale sale) {
         Transaction transaction = new Transaction();
@@ -169,38 +225,30 @@ public class MpesaPaymentService {
     }
 
 
-    private String generateAccessToken() throws Exception {
-        String url = "live".equals(env) ?
-                "https://api.safaricom.co.ke/oauth/v1/generate?grant_type=client_credentials" :
-                "https://sandbox.safaricom.co.ke/oauth/v1/generate?grant_type=client_credentials";
-
-        String auth = Base64.getEncoder().encodeToString((consumerKey + ":" + consumerSecret).getBytes());
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Basic " + auth);
-
-        HttpEntity<String> request = new HttpEntity<>(headers);
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, request, Map.class);
-
-        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
-            throw new Exception("Failed to generate access token: " + response.getStatusCode());
+    // Retries once with a fresh token when Daraja rejects the cached one
+    private <T> T callWithAccessToken(MpesaCall<T> call) throws Exception {
+        String accessToken = mpesaTokenManager.getAccessToken();
+        try {
+            return call.apply(accessToken);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            logger.warn("M-Pesa rejected the access token, refreshing it");
+            return call.apply(mpesaTokenManager.forceRefresh(accessToken));
         }
+    }
 
-        return (String) response.getBody().get("access_token");
+    @FunctionalInterface
+    private interface MpesaCall<T> {
+        T apply(String accessToken) throws Exception;
     }
 
     private Map<String, Object> sendStkPushRequest(String accessToken,
                                                    Map<String, Object> requestBody) throws Exception {
-        String url = "live".equals(env) ?
-                "https://api.safaricom.co.ke/mpesa/stkpush/v1/processrequest" :
-                "https://sandbox.safaricom.co.ke/mpesa/stkpush/v1/processrequest";
-
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + accessToken);
         headers.setContentType(MediaType.APPLICATION_JSON);
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, request, Map.class);
+        ResponseEntity<Map> response = paymentGatewayClient.exchange(Endpoint.STK_PUSH, HttpMethod.POST, request, Map.class);
 
         if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
             throw new Exception("STK Push failed: " + response.getStatusCode());
@@ -249,70 +297,96 @@ public class MpesaPaymentService {
         return stkCallback;
     }
 
-    private void updateTransactionFromCallback(Transaction transaction,
-                                               Map<String, Object> stkCallback) {
-        String resultCode = String.valueOf(stkCallback.get("ResultCode"));
-        String resultDesc = (String) stkCallback.get("ResultDesc");
-
-        transaction.setResultCode(resultCode);
-        transaction.setResultDesc(resultDesc);
-        transaction.setUpdatedAt(LocalDateTime.now());
-
-        if ("0".equals(resultCode)) {
-            processSuccessfulPayment(transaction, stkCallback);
-        } else {
-            transaction.setStatus("FAILED");
-        }
-
-        transactionRepository.save(transaction);
+    private String receiptNumber(Map<String, Object> callbackMetadata) {
+        return ((List<?>) callbackMetadata.get("Item")).stream()
+                .filter(item -> item instanceof Map)
+                .map(item -> (Map<?, ?>) item)
+                .filter(item -> "MpesaReceiptNumber".equals(item.get("Name")))
+                .findFirst()
+                .map(item -> String.valueOf(item.get("Value")))
+                .orElse(null);
     }
 
-    private void processSuccessfulPayment(Transaction transaction,
-                                          Map<String, Object> stkCallback) {
-        transaction.setStatus("SUCCESS");
-
-        Map<String, Object> callbackMetadata = (Map<String, Object>) stkCallback.get("CallbackMetadata");
-        if (callbackMetadata != null && callbackMetadata.containsKey("Item")) {
-            extractReceiptNumber(transaction, callbackMetadata);
+    /**
+     * Resolves a stale transaction whose callback never arrived, using the
+     * status M-Pesa reports for it. Returns false while Daraja reports the
+     * payment as still being processed; {@code expired} only makes that case
+     * louder, since a transaction is never failed without a definitive
+     * ResultCode. Any other query error is rethrown for the next run to retry.
+     */
+    @Transactional
+    public boolean reconcile(Transaction transaction, boolean expired) throws Exception {
+        String resultCode = null;
+        String resultDesc;
+        if (transaction.getCheckoutRequestId() == null) {
+            resultDesc = "STK push was never accepted";
         } else {
-            logger.warn("Missing callback metadata for successful transaction");
+            Map<String, Object> body;
+            try {
+                body = queryPaymentStatus(transaction.getCheckoutRequestId()).getBody();
+            } catch (HttpServerErrorException.InternalServerError e) {
+                if (!isStillProcessing(e)) {
+                    throw e;
+                }
+                body = null;
+            }
+            if (body == null || body.get("ResultCode") == null) {
+                if (expired) {
+                    logger.warn("Transaction {} is still being processed by M-Pesa long after its STK push",
+                            transaction.getId());
+                }
+                return false;
+            }
+            resultCode = String.valueOf(body.get("ResultCode"));
+            resultDesc = (String) body.get("ResultDesc");
         }
-    }
 
-    private void extractReceiptNumber(Transaction transaction,
-                                      Map<String, Object> callbackMetadata) {
-        ((List<?>) callbackMetadata.get("Item")).stream()
-                .filter(item -> item instanceof Map)
-                .map(item -> (Map<?, ?>) item)
-                .filter(item -> "MpesaReceiptNumber".equals(item.get("Name")))
-                .findFirst()
-                .ifPresent(item ->
-                        transaction.setTransactionId(String.valueOf(item.get("Value")))
-                );
+        String status = "0".equals(resultCode) ? "SUCCESS" : "FAILED";
+        int updated = transactionRepository.resolveIfOpen(transaction.getId(), status, resultCode, resultDesc,
+                null, LocalDateTime.now());
+        if (updated == 1) {
+            eventPublisher.publishEvent(new PaymentResolvedEvent(
+                    transaction.getId(),
+                    transaction.getSale() != null ? transaction.getSale().getId() : null,
+                    status
+            ));
+            logger.info("Reconciled transaction {} as {}: {}", transaction.getId(), status, resultDesc);
+        }
+        return true;
     }
 
-    private boolean checkPaymentStatus(String checkoutRequestId) {
+    // Daraja answers a query for a prompt the customer has not finished with HTTP 500 and this errorCode
+    private boolean isStillProcessing(HttpServerErrorException e) {
         try {
-            String accessToken = generateAccessToken();
-            String url = "live".equals(env) ?
-                    "https://api.safaricom.co.ke/mpesa/stkpushquery/v1/query" :
-                    "https://sandbox.safaricom.co.ke/mpesa/stkpushquery/v1/query";
+            Map<?, ?> error = objectMapper.readValue(e.getResponseBodyAsString(), Map.class);
+            return STILL_PROCESSING_ERROR_CODE.equals(error.get("errorCode"));
+        } catch (Exception parseFailure) {
+            return false;
+        }
+    }
 
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-            String password = Base64.getEncoder().encodeToString((shortcode + passkey + timestamp).getBytes());
+    private ResponseEntity<Map> queryPaymentStatus(String checkoutRequestId) throws Exception {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String password = Base64.getEncoder().encodeToString((shortcode + passkey + timestamp).getBytes());
 
-            Map<String, Object> request = new HashMap<>();
-            request.put("BusinessShortCode", shortcode);
-            request.put("Password", password);
-            request.put("Timestamp", timestamp);
-            request.put("CheckoutRequestID", checkoutRequestId);
+        Map<String, Object> request = new HashMap<>();
+        request.put("BusinessShortCode", shortcode);
+        request.put("Password", password);
+        request.put("Timestamp", timestamp);
+        request.put("CheckoutRequestID", checkoutRequestId);
 
+        return callWithAccessToken(accessToken -> {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + accessToken);
             headers.setContentType(MediaType.APPLICATION_JSON);
+            return paymentGatewayClient.exchange(Endpoint.STK_PUSH_QUERY, HttpMethod.POST,
+                    new HttpEntity<>(request, headers), Map.class);
+        });
+    }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, entity, Map.class);
+    private boolean checkPaymentStatus(String checkoutRequestId) {
+        try {
+            ResponseEntity<Map> response = queryPaymentStatus(checkoutRequestId);
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 String resultCode = String.valueOf(response.getBody().get("ResultCode"));
@@ -332,13 +406,17 @@ public class MpesaPaymentService {
                 if ("0".equals(resultCode)) {
                     transaction.setStatus("SUCCESS");
                     Map<String, Object> callbackMetadata = (Map<String, Object>) response.getBody().get("CallbackMetadata");
-                    if (callbackMetadata != null) {
-                        extractReceiptNumber(transaction, callbackMetadata);
+                    if (callbackMetadata != null && callbackMetadata.get("Item") != null) {
+                        String receiptNumber = receiptNumber(callbackMetadata);
+                        if (receiptNumber != null) {
+                            transaction.setTransactionId(receiptNumber);
+                        }
                     }
                 } else {
                     transaction.setStatus("FAILED");
                 }
                 transactionRepository.save(transaction);
+                publishResolution(transaction);
                 logger.info("Payment status updated for CheckoutRequestID: {} - Status: {}", checkoutRequestId, transaction.getStatus());
                 return "0".equals(resultCode);
             }
@@ -0,0 +1,167 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.service.PaymentGatewayClient.Endpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the Daraja OAuth access token. The token is reused until shortly
+ * before its {@code expires_in}, refreshed in the background ahead of that,
+ * and concurrent callers that find it missing or rejected share one refresh
+ * call instead of each fetching their own.
+ */
+@Component
+public class MpesaTokenManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(MpesaTokenManager.class);
+
+    // Daraja tokens are issued for an hour
+    private static final long DEFAULT_EXPIRES_IN_SECONDS = 3599;
+
+    @Value("${mpesa.consumer.key}")
+    private String consumerKey;
+
+    @Value("${mpesa.consumer.secret}")
+    private String consumerSecret;
+
+    @Value("${mpesa.token.expiry-margin-seconds:60}")
+    private long expiryMarginSeconds;
+
+    @Value("${mpesa.token.refresh-ahead-seconds:300}")
+    private long refreshAheadSeconds;
+
+    @Value("${mpesa.token.refresh-timeout-seconds:30}")
+    private long refreshTimeoutSeconds;
+
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final AtomicReference<AccessToken> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<AccessToken>> inFlight = new AtomicReference<>();
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder forcedRefreshes = new LongAdder();
+
+    public MpesaTokenManager(PaymentGatewayClient paymentGatewayClient) {
+        this.paymentGatewayClient = paymentGatewayClient;
+    }
+
+    public String getAccessToken() throws Exception {
+        AccessToken token = current.get();
+        if (token != null && token.isUsable(expiryMarginSeconds)) {
+            return token.value();
+        }
+        return refresh().value();
+    }
+
+    /**
+     * Called after the API answered 401 for {@code rejectedToken}. If another
+     * caller already replaced that token the new one is returned, otherwise a
+     * refresh is forced.
+     */
+    public String forceRefresh(String rejectedToken) throws Exception {
+        AccessToken token = current.get();
+        if (token != null && !token.value().equals(rejectedToken) && token.isUsable(expiryMarginSeconds)) {
+            return token.value();
+        }
+        forcedRefreshes.increment();
+        current.compareAndSet(token, null);
+        return refresh().value();
+    }
+
+    @Scheduled(fixedDelayString = "${mpesa.token.check-ms:30000}")
+    public void refreshAhead() {
+        AccessToken token = current.get();
+        // Nothing to keep warm until the first payment asked for a token
+        if (token == null || token.isUsable(refreshAheadSeconds)) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.warn("Background M-Pesa token refresh failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    public long getRefreshFailureCount() {
+        return refreshFailures.sum();
+    }
+
+    public long getForcedRefreshCount() {
+        return forcedRefreshes.sum();
+    }
+
+    private AccessToken refresh() throws Exception {
+        CompletableFuture<AccessToken> mine = new CompletableFuture<>();
+        CompletableFuture<AccessToken> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            AccessToken token = fetch();
+            current.set(token);
+            refreshes.increment();
+            mine.complete(token);
+            return token;
+        } catch (Exception e) {
+            refreshFailures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private AccessToken await(CompletableFuture<AccessToken> refresh) throws Exception {
+        try {
+            return refresh.get(refreshTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            throw new Exception("Timed out waiting for M-Pesa access token");
+        }
+    }
+
+    private AccessToken fetch() throws Exception {
+        String auth = Base64.getEncoder().encodeToString((consumerKey + ":" + consumerSecret).getBytes());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Basic " + auth);
+
+        HttpEntity<String> request = new HttpEntity<>(headers);
+        ResponseEntity<Map> response = paymentGatewayClient.exchange(Endpoint.OAUTH, HttpMethod.GET, request, Map.class);
+
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null
+                || response.getBody().get("access_token") == null) {
+            throw new Exception("Failed to generate access token: " + response.getStatusCode());
+        }
+
+        Object expiresIn = response.getBody().get("expires_in");
+        long expiresInSeconds = expiresIn != null ? Long.parseLong(String.valueOf(expiresIn)) : DEFAULT_EXPIRES_IN_SECONDS;
+        logger.info("Fetched M-Pesa access token valid for {}s", expiresInSeconds);
+        return new AccessToken((String) response.getBody().get("access_token"),
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expiresInSeconds));
+    }
+
+    private record AccessToken(String value, long expiresAt) {
+        private boolean isUsable(long marginSeconds) {
+            return System.currentTimeMillis() < expiresAt - TimeUnit.SECONDS.toMillis(marginSeconds);
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package com.springboot.pos.service;
 
 public interface NotificationService {
-    void notifyAdmin(String message);
-    void notifyPurchasing(String message);
+    /**
+     * @return whether the message was handed to the mail server
+     */
+    boolean notifyAdmin(String message);
+
+    /**
+     * @return whether the message was handed to the mail server
+     */
+    boolean notifyPurchasing(String message);
+
     void sendVerificationEmail(String toEmail, String verificationToken);
 }
@@ -0,0 +1,132 @@
+package com.springboot.pos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Lets a checkout wait for its M-Pesa callback instead of polling the
+ * transaction. Waiters register a future under their CheckoutRequestID; the
+ * callback completes it directly when it is applied on this node, and through
+ * the {@code payment_notifications} table when it lands on another one. That
+ * table is only read while someone is waiting, and only for the ids they wait
+ * on.
+ */
+@Service
+public class PaymentCompletionRegistry {
+
+    public record PaymentOutcome(String status, String resultCode, String resultDesc, String receiptNumber) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentCompletionRegistry.class);
+
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO payment_notifications " +
+            "(checkout_requestid, status, result_code, result_desc, receipt_number, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP(3))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, CompletableFuture<PaymentOutcome>> waiters = new ConcurrentHashMap<>();
+
+    private final LongAdder localCompletions = new LongAdder();
+    private final LongAdder remoteCompletions = new LongAdder();
+
+    @Value("${payment.completion.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public PaymentCompletionRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public CompletableFuture<PaymentOutcome> register(String checkoutRequestId) {
+        return waiters.computeIfAbsent(checkoutRequestId, id -> new CompletableFuture<>());
+    }
+
+    public void unregister(String checkoutRequestId, CompletableFuture<PaymentOutcome> completion) {
+        waiters.remove(checkoutRequestId, completion);
+    }
+
+    /**
+     * Publishes the outcome of a payment. Committed on its own so the
+     * notification survives a rollback of the caller, e.g. when the callback
+     * is retried because its transaction is not visible yet.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void signal(String checkoutRequestId, PaymentOutcome outcome) {
+        jdbcTemplate.update(INSERT_SQL, checkoutRequestId, outcome.status(), outcome.resultCode(),
+                outcome.resultDesc(), outcome.receiptNumber());
+        if (complete(checkoutRequestId, outcome)) {
+            localCompletions.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.completion.poll-ms:500}")
+    public void pollNotifications() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> ids = new ArrayList<>(waiters.keySet());
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+                List<String> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()));
+                String placeholders = chunk.stream().map(id -> "?").collect(Collectors.joining(", "));
+                jdbcTemplate.query(
+                        "SELECT checkout_requestid, status, result_code, result_desc, receipt_number " +
+                        "FROM payment_notifications WHERE checkout_requestid IN (" + placeholders + ")",
+                        rs -> {
+                            PaymentOutcome outcome = new PaymentOutcome(rs.getString("status"),
+                                    rs.getString("result_code"), rs.getString("result_desc"),
+                                    rs.getString("receipt_number"));
+                            if (complete(rs.getString("checkout_requestid"), outcome)) {
+                                remoteCompletions.increment();
+                            }
+                        },
+                        chunk.toArray());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to poll payment notifications: {}", e.getMessage());
+        }
+    }
+
+    public int purgeExpiredNotifications() {
+        int purged = jdbcTemplate.update(
+                "DELETE FROM payment_notifications WHERE created_at < CURRENT_TIMESTAMP(3) - INTERVAL ? MINUTE",
+                retentionMinutes);
+        if (purged > 0) {
+            logger.info("Purged {} payment notifications", purged);
+        }
+        return purged;
+    }
+
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+
+    public long getLocalCompletionCount() {
+        return localCompletions.sum();
+    }
+
+    public long getRemoteCompletionCount() {
+        return remoteCompletions.sum();
+    }
+
+    private boolean complete(String checkoutRequestId, PaymentOutcome outcome) {
+        CompletableFuture<PaymentOutcome> completion = waiters.get(checkoutRequestId);
+        return completion != null && completion.complete(outcome);
+    }
+}
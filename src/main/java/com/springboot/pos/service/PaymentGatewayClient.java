@@ -0,0 +1,203 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.utils.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP client for the Daraja API. Calls go over a shared keep-alive
+ * connection pool with connect and read timeouts, at most
+ * {@code mpesa.http.max-concurrent-calls} run at once, and after
+ * {@code mpesa.circuit.failure-threshold} consecutive timeouts or 502-504 answers
+ * calls fail fast until {@code mpesa.circuit.open-ms} has passed and a single
+ * trial call succeeds. Latency is tracked per endpoint.
+ */
+@Component
+public class PaymentGatewayClient {
+
+    public enum Endpoint {
+        OAUTH("/oauth/v1/generate?grant_type=client_credentials"),
+        STK_PUSH("/mpesa/stkpush/v1/processrequest"),
+        STK_PUSH_QUERY("/mpesa/stkpushquery/v1/query");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+    }
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentGatewayClient.class);
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final long bulkheadWaitMs;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private final AtomicReference<CircuitState> circuitState = new AtomicReference<>(CircuitState.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    private final Map<Endpoint, LatencyHistogram> latencies = new EnumMap<>(Endpoint.class);
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LongAdder circuitRejections = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public PaymentGatewayClient(@Value("${mpesa.env}") String env,
+                                @Value("${mpesa.base-url:}") String baseUrl,
+                                @Value("${mpesa.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+                                @Value("${mpesa.http.read-timeout-ms:15000}") long readTimeoutMs,
+                                @Value("${mpesa.http.max-concurrent-calls:20}") int maxConcurrentCalls,
+                                @Value("${mpesa.http.bulkhead-wait-ms:500}") long bulkheadWaitMs,
+                                @Value("${mpesa.circuit.failure-threshold:5}") int failureThreshold,
+                                @Value("${mpesa.circuit.open-ms:30000}") long openMs) {
+        // The JDK client keeps connections alive and reuses them per host
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        this.restTemplate = new RestTemplate(requestFactory);
+        // mpesa.base-url points the client at a local stub server in tests
+        this.baseUrl = !baseUrl.isBlank() ? baseUrl
+                : "live".equals(env) ? "https://api.safaricom.co.ke" : "https://sandbox.safaricom.co.ke";
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new LatencyHistogram());
+        }
+    }
+
+    public <T> ResponseEntity<T> exchange(Endpoint endpoint, HttpMethod method,
+                                          HttpEntity<?> request, Class<T> responseType) {
+        acquirePermit(endpoint);
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            enterCircuit(endpoint);
+            try {
+                return restTemplate.exchange(baseUrl + endpoint.path, method, request, responseType);
+            } catch (ResourceAccessException e) {
+                failed = true;
+                throw e;
+            } catch (HttpServerErrorException e) {
+                // Daraja also answers 500 for business errors, e.g. a payment still being processed
+                failed = e.getStatusCode().value() != HttpStatus.INTERNAL_SERVER_ERROR.value();
+                throw e;
+            } finally {
+                latencies.get(endpoint).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (failed) {
+                    onFailure(endpoint);
+                } else {
+                    onSuccess();
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public CircuitState getCircuitState() {
+        return circuitState.get();
+    }
+
+    public LatencyHistogram getLatency(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    public int getInFlightCalls() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    public long getBulkheadRejectionCount() {
+        return bulkheadRejections.sum();
+    }
+
+    public long getCircuitRejectionCount() {
+        return circuitRejections.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    private void acquirePermit(Endpoint endpoint) {
+        try {
+            if (bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bulkheadRejections.increment();
+        throw new PosApiException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many M-Pesa calls in flight, rejected " + endpoint);
+    }
+
+    private void enterCircuit(Endpoint endpoint) {
+        CircuitState state = circuitState.get();
+        if (state == CircuitState.CLOSED) {
+            return;
+        }
+        // Once the open period is over, exactly one caller gets through as the trial
+        if (state == CircuitState.OPEN && System.currentTimeMillis() - openedAt >= openMs
+                && circuitState.compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN)) {
+            logger.info("M-Pesa circuit half-open, sending trial {} call", endpoint);
+            return;
+        }
+        circuitRejections.increment();
+        throw new PosApiException(HttpStatus.SERVICE_UNAVAILABLE,
+                "M-Pesa is unavailable, " + endpoint + " call not attempted");
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (circuitState.getAndSet(CircuitState.CLOSED) != CircuitState.CLOSED) {
+            logger.info("M-Pesa circuit closed");
+        }
+    }
+
+    private void onFailure(Endpoint endpoint) {
+        failures.increment();
+        if (circuitState.get() == CircuitState.HALF_OPEN
+                || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            if (circuitState.getAndSet(CircuitState.OPEN) != CircuitState.OPEN) {
+                logger.warn("M-Pesa circuit opened after {} failed; failing fast for {}ms", endpoint, openMs);
+            }
+        }
+    }
+}
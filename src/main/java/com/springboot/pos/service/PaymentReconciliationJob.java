@@ -0,0 +1,167 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.model.Transaction;
+import com.springboot.pos.repository.TransactionRepository;
+import com.springboot.pos.security.TokenBucketLimiter;
+import com.springboot.pos.service.job.ClusterJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves M-Pesa transactions left PENDING or TIMEOUT because their callback
+ * was lost. Stale transactions are paged by {@code (status, created_at)} and
+ * queried from Daraja on a small pool, paced by a token bucket; resolving one
+ * publishes the usual {@code PaymentResolvedEvent}, which completes or fails
+ * its sale and releases the reserved stock. Runs on one node at a time as a
+ * {@link ClusterJob}.
+ */
+@Service
+public class PaymentReconciliationJob implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationJob.class);
+
+    private static final String RATE_KEY = "stkpushquery";
+    private static final List<String> OPEN_STATUSES = List.of("PENDING", "TIMEOUT");
+    private static final Sort SORT = Sort.by("createdAt", "id");
+
+    private final TransactionRepository transactionRepository;
+    private final MpesaPaymentService mpesaPaymentService;
+    private final ExecutorService workers;
+    private final TokenBucketLimiter rateLimiter;
+
+    private final LongAdder resolved = new LongAdder();
+    private final LongAdder stillPending = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @Value("${mpesa.reconcile.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${mpesa.reconcile.stale-minutes:5}")
+    private long staleMinutes;
+
+    @Value("${mpesa.reconcile.expire-minutes:60}")
+    private long expireMinutes;
+
+    @Value("${mpesa.reconcile.page-size:100}")
+    private int pageSize;
+
+    @Value("${mpesa.reconcile.max-per-run:1000}")
+    private int maxPerRun;
+
+    public PaymentReconciliationJob(TransactionRepository transactionRepository,
+                                    MpesaPaymentService mpesaPaymentService,
+                                    @Value("${mpesa.reconcile.parallelism:4}") int parallelism,
+                                    @Value("${mpesa.reconcile.queries-per-minute:120}") int queriesPerMinute) {
+        this.transactionRepository = transactionRepository;
+        this.mpesaPaymentService = mpesaPaymentService;
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "mpesa-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rateLimiter = new TokenBucketLimiter(parallelism, queriesPerMinute, 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return "payment-reconciliation";
+    }
+
+    @Override
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public int run() {
+        return reconcileStaleTransactions();
+    }
+
+    public long getResolvedCount() {
+        return resolved.sum();
+    }
+
+    public long getStillPendingCount() {
+        return stillPending.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    private int reconcileStaleTransactions() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusMinutes(staleMinutes);
+        LocalDateTime expireBefore = now.minusMinutes(expireMinutes);
+        int budget = maxPerRun;
+        int processed = 0;
+
+        for (String status : OPEN_STATUSES) {
+            ScrollPosition position = ScrollPosition.keyset();
+            Window<Transaction> page;
+            do {
+                page = transactionRepository.findByStatusAndCreatedAtBefore(status, staleBefore, position, SORT,
+                        Limit.of(Math.min(pageSize, budget)));
+                if (page.isEmpty()) {
+                    break;
+                }
+                CompletableFuture.allOf(page.stream()
+                        .map(transaction -> CompletableFuture.runAsync(
+                                () -> reconcile(transaction, transaction.getCreatedAt().isBefore(expireBefore)), workers))
+                        .toArray(CompletableFuture[]::new))
+                        .join();
+                budget -= page.size();
+                processed += page.size();
+                position = page.positionAt(page.size() - 1);
+            } while (page.hasNext() && budget > 0);
+        }
+
+        if (processed > 0) {
+            logger.info("Payment reconciliation checked {} stale transactions", processed);
+        }
+        return processed;
+    }
+
+    private void reconcile(Transaction transaction, boolean expired) {
+        try {
+            awaitRateLimit();
+            if (mpesaPaymentService.reconcile(transaction, expired)) {
+                resolved.increment();
+            } else {
+                stillPending.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            errors.increment();
+            logger.warn("Failed to reconcile transaction {}: {}", transaction.getId(), e.getMessage());
+        }
+    }
+
+    private void awaitRateLimit() throws InterruptedException {
+        long waitSeconds;
+        while ((waitSeconds = rateLimiter.tryAcquire(RATE_KEY)) > 0) {
+            TimeUnit.SECONDS.sleep(waitSeconds);
+        }
+    }
+}
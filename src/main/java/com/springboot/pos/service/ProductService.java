@@ -1,22 +1,33 @@
 package com.springboot.pos.service;
 
 import com.springboot.pos.model.Product;
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.ProductDto;
 import com.springboot.pos.payload.SaleRequestDto;
+import com.springboot.pos.payload.StockLevelDto;
+import com.springboot.pos.payload.StockMovementDto;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ProductService {
         ProductDto createProduct(ProductDto productDto, MultipartFile image) throws IOException;
         ProductDto getProductById(long id);
         PagedResponse<ProductDto> getAllProducts(int pageNo, int pageSize, String sortBy, String sortDir, String category);
+        CursorResponse<ProductDto> scrollProducts(String after, int limit, String sortBy, String sortDir, String category);
         ProductDto updateProduct(ProductDto productDto, long id, MultipartFile image) throws IOException;
         void deleteProductById(long id);
+        SaleProductContext loadProductsForSale(SaleRequestDto saleRequest);
         void reserveStockForSale(SaleRequestDto saleRequest);
-        void releaseReservedStock(SaleRequestDto saleRequest);
+        void reserveStockForSale(SaleRequestDto saleRequest, SaleProductContext products);
+        void releaseReservedStock(Long saleId, SaleRequestDto saleRequest);
+        void commitReservedStock(Long saleId, SaleRequestDto saleRequest);
         void updateProductStock(Product product, int quantitySold);
+        StockLevelDto restockProduct(long id, StockMovementDto movement);
+        StockLevelDto recordStockTake(long id, StockMovementDto movement);
+        StockLevelDto getStockAt(long id, LocalDateTime at);
         void saveAllProducts(List<Product> products);
 }
\ No newline at end of file
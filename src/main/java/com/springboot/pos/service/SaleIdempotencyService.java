@@ -0,0 +1,250 @@
+package com.springboot.pos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.model.IdempotencyRecord;
+import com.springboot.pos.payload.SaleResponseDto;
+import com.springboot.pos.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes {@code POST /api/sales} safe to retry with an {@code Idempotency-Key}
+ * header. Recent keys are answered from memory; the {@code idempotency_keys}
+ * table, with its unique key column, covers restarts and requests that land on
+ * another node. Concurrent duplicates on this node wait for the in-flight sale
+ * instead of processing it twice.
+ *
+ * <p>Each key is bound to a hash of the request it first arrived with; the same
+ * key with a different body is rejected with 422. A key left IN_PROGRESS for
+ * longer than {@code idempotency.stale-seconds}, typically by a node that died
+ * mid-sale, is taken over by the next retry. The key is marked COMPLETED inside
+ * the sale's transaction, so an IN_PROGRESS key always means no sale was
+ * committed for it, and an attempt that lost its key to a takeover rolls its
+ * own sale back.</p>
+ */
+@Service
+public class SaleIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaleIdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Entry> recentKeys = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.wait-seconds:200}")
+    private long waitSeconds;
+
+    @Value("${idempotency.memory-ttl-minutes:10}")
+    private long memoryTtlMinutes;
+
+    @Value("${idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${idempotency.stale-seconds:600}")
+    private long staleSeconds;
+
+    public SaleIdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public SaleResponseDto execute(String key, Object request, Supplier<SaleResponseDto> sale) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Entry entry = new Entry(hash(request));
+        Entry existing = recentKeys.putIfAbsent(key, entry);
+        if (existing != null) {
+            if (!existing.requestHash.equals(entry.requestHash)) {
+                throw mismatch(key);
+            }
+            logger.info("Replaying sale response for Idempotency-Key {}", key);
+            return await(key, existing.result);
+        }
+
+        try {
+            SaleResponseDto response = claimAndRun(key, entry.requestHash, sale);
+            entry.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Failed attempts are not remembered so the till can retry them
+            recentKeys.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-ms:60000}")
+    public void evictExpiredKeys() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(memoryTtlMinutes);
+        recentKeys.entrySet().removeIf(e -> e.getValue().result.isDone() && e.getValue().createdAt < cutoff);
+    }
+
+    public int purgeExpiredRecords() {
+        int purged = idempotencyRecordRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+        return purged;
+    }
+
+    private SaleResponseDto claimAndRun(String key, String requestHash, Supplier<SaleResponseDto> sale) {
+        IdempotencyRecord record;
+        String token = UUID.randomUUID().toString();
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByIdempotencyKey(key);
+        if (existing.isPresent()) {
+            record = existing.get();
+            Optional<SaleResponseDto> stored = completedResponse(record, requestHash);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            if (!takeOverStale(record, token)) {
+                // The holder may have committed while we were deciding; its response wins
+                return idempotencyRecordRepository.findByIdempotencyKey(key)
+                        .flatMap(current -> completedResponse(current, requestHash))
+                        .orElseThrow(() -> inProgress(key));
+            }
+            logger.warn("Taking over Idempotency-Key {}, in progress since {}", key, record.getUpdatedAt());
+        } else {
+            record = new IdempotencyRecord();
+            record.setIdempotencyKey(key);
+            record.setRequestHash(requestHash);
+            record.setStatus("IN_PROGRESS");
+            record.setClaimToken(token);
+            try {
+                record = idempotencyRecordRepository.saveAndFlush(record);
+            } catch (DataIntegrityViolationException e) {
+                // Another node claimed the key between our lookup and insert
+                return idempotencyRecordRepository.findByIdempotencyKey(key)
+                        .flatMap(claimed -> completedResponse(claimed, requestHash))
+                        .orElseThrow(() -> inProgress(key));
+            }
+        }
+
+        Long recordId = record.getId();
+        try {
+            // The key turns COMPLETED in the sale's own transaction: a committed sale can never be
+            // left behind an IN_PROGRESS key that a later retry would take over and run again
+            return transactionTemplate.execute(status -> {
+                SaleResponseDto response = sale.get();
+                if (idempotencyRecordRepository.complete(recordId, token, toJson(response), LocalDateTime.now()) != 1) {
+                    // Taken over by another attempt after we were presumed dead; roll our sale back
+                    throw inProgress(key);
+                }
+                return response;
+            });
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.releaseClaim(recordId, token);
+            throw e;
+        }
+    }
+
+    /**
+     * Stored response of a completed key, or empty while it is in progress.
+     */
+    private Optional<SaleResponseDto> completedResponse(IdempotencyRecord record, String requestHash) {
+        // Keys stored before request hashes were recorded match any request
+        if (record.getRequestHash() != null && !record.getRequestHash().equals(requestHash)) {
+            throw mismatch(record.getIdempotencyKey());
+        }
+        if (!"COMPLETED".equals(record.getStatus())) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(record.getResponseBody(), SaleResponseDto.class));
+        } catch (Exception e) {
+            throw new IllegalStateException("Stored response for Idempotency-Key " + record.getIdempotencyKey() +
+                    " is unreadable", e);
+        }
+    }
+
+    private boolean takeOverStale(IdempotencyRecord record, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        // Only one retry wins the conditional update, even across nodes
+        return idempotencyRecordRepository.claimStale(record.getId(), token, now, now.minusSeconds(staleSeconds)) == 1;
+    }
+
+    private String toJson(SaleResponseDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize sale response", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SaleResponseDto await(String key, CompletableFuture<SaleResponseDto> result) {
+        try {
+            return result.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw inProgress(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress(key);
+        }
+    }
+
+    private PosApiException inProgress(String key) {
+        return new PosApiException(HttpStatus.CONFLICT,
+                "A sale with Idempotency-Key " + key + " is still being processed");
+    }
+
+    private PosApiException mismatch(String key) {
+        return new PosApiException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key " + key + " was already used with a different request");
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<SaleResponseDto> result = new CompletableFuture<>();
+        private final long createdAt = System.currentTimeMillis();
+        private final String requestHash;
+
+        private Entry(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.springboot.pos.service;
 
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.SaleItemResponseDto;
+import com.springboot.pos.model.Product;
 import com.springboot.pos.model.SaleItem;
 
 public interface SaleItemService {
@@ -9,5 +10,6 @@ public interface SaleItemService {
     PagedResponse<SaleItemResponseDto> getAllSaleItems(int pageNo, int pageSize, String sortBy, String sortDir);
     SaleItemResponseDto getSaleItemById(long id);
     SaleItem prepareSaleItem(SaleItemResponseDto saleItemDto);
+    SaleItem prepareSaleItem(SaleItemResponseDto saleItemDto, Product product);
     void logSaleItemCreation(SaleItem saleItem);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.exception.ResourceNotFoundException;
+import com.springboot.pos.model.Product;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Products referenced by a single sale, loaded once up front so that stock
+ * reservation, pricing and sale item construction share the same rows instead
+ * of querying the product table per line.
+ *
+ * <p>Prices, names and relations are safe to read from here for the lifetime of
+ * the sale. Stock counters are not: they are updated in bulk behind the
+ * entities' backs and must be read from the database when needed.</p>
+ */
+public class SaleProductContext {
+
+    private final Map<Long, Product> products;
+
+    public SaleProductContext(Map<Long, Product> products) {
+        this.products = Collections.unmodifiableMap(products);
+    }
+
+    public Product get(Long productId) {
+        Product product = products.get(productId);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        return product;
+    }
+
+    public Map<Long, Product> asMap() {
+        return products;
+    }
+}
@@ -6,6 +6,9 @@ import java.time.LocalDate;
 public interface SaleService {
     SaleResponseDto processSale(SaleRequestDto saleRequest);
     PagedResponse<SaleResponseDto> getAllSales(int pageNo, int pageSize, String sortBy, String sortDir);
+    CursorResponse<SaleResponseDto> scrollSales(String after, int limit, String sortBy, String sortDir);
     SaleResponseDto getSaleById(long id);
+    SaleStatusDto getSaleStatus(long id);
+    void completePendingSale(long saleId);
     SalesReportDto getSalesReport(int pageNo, int pageSize, String sortBy, String sortDir, String search, LocalDate startDate, LocalDate endDate);
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.springboot.pos.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.pos.payload.SaleExportRow;
+import com.springboot.pos.repository.SaleRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes completed sales for a date range straight from a forward-only result
+ * set to the response. Only the current row (and for NDJSON, the current sale)
+ * is held in memory, so exporting a year costs the same heap as a day.
+ */
+@Service
+public class SalesExportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesExportService.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String CSV_HEADER = "sale_id,sale_date,status,payment_method,customer,cashier," +
+            "subtotal_amount,discount_amount,tax_amount,total_amount," +
+            "product_id,product_name,quantity,unit_price,line_total";
+
+    // Rows are projections, but clear the session periodically so nothing else builds up
+    private static final int CLEAR_EVERY_ROWS = 1000;
+
+    private final SaleRepository saleRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public SalesExportService(SaleRepository saleRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.saleRepository = saleRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Streams sales dated {@code from} to {@code to} inclusive to {@code out}.
+     * Must run on the thread that writes the response, inside its own
+     * read-only transaction that stays open while the cursor is read.
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        long rows;
+        try (Stream<SaleExportRow> stream = saleRepository.streamExportRows(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            rows = format == Format.CSV
+                    ? writeCsv(stream.iterator(), out)
+                    : writeNdjson(stream.iterator(), out);
+        }
+        logger.info("Exported {} sale item rows for {} to {} as {}", rows, from, to, format);
+        return rows;
+    }
+
+    private long writeCsv(Iterator<SaleExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            SaleExportRow row = rows.next();
+            writer.write(String.join(",",
+                    String.valueOf(row.getSaleId()),
+                    row.getSaleDate() != null ? row.getSaleDate().format(DATE_FORMAT) : "",
+                    csv(row.getStatus()),
+                    csv(row.getPaymentMethod()),
+                    csv(row.getCustomerName()),
+                    csv(row.getCashier()),
+                    amount(row.getSubtotalAmount()),
+                    amount(row.getDiscountAmount()),
+                    amount(row.getTaxAmount()),
+                    amount(row.getTotalAmount()),
+                    String.valueOf(row.getProductId()),
+                    csv(row.getProductName()),
+                    String.valueOf(row.getQuantity()),
+                    amount(row.getUnitPrice()),
+                    amount(row.getLineTotal())));
+            writer.write('\n');
+            afterRow(++count);
+        }
+        writer.flush();
+        return count;
+    }
+
+    // One JSON object per sale with its items; rows arrive grouped by sale id
+    private long writeNdjson(Iterator<SaleExportRow> rows, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.setRootValueSeparator(null);
+
+        long count = 0;
+        Long currentSaleId = null;
+        while (rows.hasNext()) {
+            SaleExportRow row = rows.next();
+            if (!row.getSaleId().equals(currentSaleId)) {
+                if (currentSaleId != null) {
+                    endSale(json);
+                }
+                startSale(json, row);
+                currentSaleId = row.getSaleId();
+            }
+            json.writeStartObject();
+            writeNumber(json, "productId", row.getProductId());
+            json.writeStringField("productName", row.getProductName());
+            writeNumber(json, "quantity", row.getQuantity());
+            writeNumber(json, "unitPrice", row.getUnitPrice());
+            writeNumber(json, "totalPrice", row.getLineTotal());
+            json.writeEndObject();
+            afterRow(++count);
+        }
+        if (currentSaleId != null) {
+            endSale(json);
+        }
+        json.flush();
+        return count;
+    }
+
+    private void startSale(JsonGenerator json, SaleExportRow row) throws IOException {
+        json.writeStartObject();
+        writeNumber(json, "id", row.getSaleId());
+        json.writeStringField("saleDate", row.getSaleDate() != null ? row.getSaleDate().format(DATE_FORMAT) : null);
+        json.writeStringField("status", row.getStatus());
+        json.writeStringField("paymentMethod", row.getPaymentMethod());
+        json.writeStringField("customer", row.getCustomerName());
+        json.writeStringField("cashier", row.getCashier());
+        writeNumber(json, "subtotalPrice", row.getSubtotalAmount());
+        writeNumber(json, "discountAmount", row.getDiscountAmount());
+        writeNumber(json, "taxAmount", row.getTaxAmount());
+        writeNumber(json, "totalPrice", row.getTotalAmount());
+        json.writeArrayFieldStart("items");
+    }
+
+    private void endSale(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void afterRow(long count) {
+        if (count % CLEAR_EVERY_ROWS == 0) {
+            entityManager.clear();
+        }
+    }
+
+    // Boxed columns can be null, which writeNumberField cannot take
+    private static void writeNumber(JsonGenerator json, String name, Number value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else if (value instanceof BigDecimal decimal) {
+            json.writeNumberField(name, decimal);
+        } else if (value instanceof Double || value instanceof Float) {
+            json.writeNumberField(name, value.doubleValue());
+        } else {
+            json.writeNumberField(name, value.longValue());
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Product and customer names are free text; keep spreadsheets from running them as formulas
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String amount(Double value) {
+        return value != null ? BigDecimal.valueOf(value).toPlainString() : "";
+    }
+
+    private static String amount(BigDecimal value) {
+        return value != null ? value.toPlainString() : "";
+    }
+}
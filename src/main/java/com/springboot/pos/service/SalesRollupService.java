@@ -0,0 +1,255 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.model.Sale;
+import com.springboot.pos.model.SaleItem;
+import com.springboot.pos.payload.SalesGroupTotal;
+import com.springboot.pos.payload.SalesTotals;
+import com.springboot.pos.repository.DailyCustomerSalesRollupRepository;
+import com.springboot.pos.repository.DailySalesRollupRepository;
+import com.springboot.pos.repository.SaleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains the {@code daily_sales_rollup} and {@code daily_customer_sales_rollup}
+ * tables and answers report totals from them. Closed days are read from the rollup; today is still aggregated from the
+ * raw {@code sales} rows, so the cost of a report no longer grows with the size
+ * of the sales table.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final String UNKNOWN_PAYMENT_METHOD = "UNKNOWN";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO daily_sales_rollup " +
+            "(sale_date, payment_method, category_id, product_id, units_sold, gross_amount, net_amount, sale_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), " +
+            "gross_amount = gross_amount + VALUES(gross_amount), " +
+            "net_amount = net_amount + VALUES(net_amount), " +
+            "sale_count = sale_count + VALUES(sale_count)";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM daily_sales_rollup WHERE sale_date >= ? AND sale_date <= ?";
+
+    // Rebuilds the same rows recordSale would have written, straight from the raw tables
+    private static final String REBUILD_RANGE_SQL =
+            "INSERT INTO daily_sales_rollup " +
+            "(sale_date, payment_method, category_id, product_id, units_sold, gross_amount, net_amount, sale_count) " +
+            "SELECT DATE(s.sale_date), COALESCE(s.payment_method, '" + UNKNOWN_PAYMENT_METHOD + "'), " +
+            "p.category_name, si.product_id, SUM(si.quantity), SUM(si.total_price), " +
+            "ROUND(SUM(COALESCE(si.total_price * s.total_amount / NULLIF(s.subtotal_amount, 0), 0)), 2), " +
+            "COUNT(DISTINCT CASE WHEN si.product_id = (SELECT MIN(fi.product_id) FROM sale_items fi " +
+            "WHERE fi.sale_id = s.id) THEN s.id END) " +
+            "FROM sales s JOIN sale_items si ON si.sale_id = s.id JOIN products p ON p.id = si.product_id " +
+            "WHERE (s.status IS NULL OR s.status = 'COMPLETED') AND s.sale_date >= ? AND s.sale_date < ? " +
+            "GROUP BY DATE(s.sale_date), COALESCE(s.payment_method, '" + UNKNOWN_PAYMENT_METHOD + "'), " +
+            "p.category_name, si.product_id";
+
+    private static final String UPSERT_CUSTOMER_SQL =
+            "INSERT INTO daily_customer_sales_rollup (sale_date, customer_id, total_amount, sale_count) " +
+            "VALUES (?, ?, ?, 1) " +
+            "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), sale_count = sale_count + 1";
+
+    private static final String DELETE_CUSTOMER_RANGE_SQL =
+            "DELETE FROM daily_customer_sales_rollup WHERE sale_date >= ? AND sale_date <= ?";
+
+    private static final String REBUILD_CUSTOMER_RANGE_SQL =
+            "INSERT INTO daily_customer_sales_rollup (sale_date, customer_id, total_amount, sale_count) " +
+            "SELECT DATE(s.sale_date), s.customer_id, ROUND(SUM(s.total_amount), 2), COUNT(*) " +
+            "FROM sales s WHERE s.customer_id IS NOT NULL " +
+            "AND (s.status IS NULL OR s.status = 'COMPLETED') AND s.sale_date >= ? AND s.sale_date < ? " +
+            "GROUP BY DATE(s.sale_date), s.customer_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final DailyCustomerSalesRollupRepository dailyCustomerSalesRollupRepository;
+    private final SaleRepository saleRepository;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate,
+                              DailySalesRollupRepository dailySalesRollupRepository,
+                              DailyCustomerSalesRollupRepository dailyCustomerSalesRollupRepository,
+                              SaleRepository saleRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.dailyCustomerSalesRollupRepository = dailyCustomerSalesRollupRepository;
+        this.saleRepository = saleRepository;
+    }
+
+    /**
+     * Adds a finalized sale to the rollup rows of its sale date. Runs in the caller's
+     * transaction so the rollup commits or rolls back with the sale.
+     */
+    @Transactional
+    public void recordSale(Sale sale) {
+        if (sale.getSaleItems().isEmpty()) {
+            return;
+        }
+        // The day REBUILD_RANGE_SQL files the sale under, even when it completes after midnight
+        LocalDate saleDate = sale.getSaleDate().toLocalDate();
+        String paymentMethod = sale.getPaymentMethod() != null ? sale.getPaymentMethod() : UNKNOWN_PAYMENT_METHOD;
+        BigDecimal netFactor = sale.getSubtotalAmount() != null && sale.getSubtotalAmount() > 0
+                ? BigDecimal.valueOf(sale.getTotalAmount()).divide(BigDecimal.valueOf(sale.getSubtotalAmount()), MathContext.DECIMAL64)
+                : BigDecimal.ZERO;
+
+        // One row per product, in ascending id order so concurrent upserts lock keys consistently
+        Map<Long, long[]> units = new TreeMap<>();
+        Map<Long, BigDecimal> gross = new TreeMap<>();
+        Map<Long, Long> categories = new TreeMap<>();
+        for (SaleItem item : sale.getSaleItems()) {
+            Long productId = item.getProduct().getId();
+            units.computeIfAbsent(productId, id -> new long[1])[0] += item.getQuantity();
+            gross.merge(productId, item.getTotalPrice(), BigDecimal::add);
+            categories.put(productId, item.getProduct().getCategory().getId());
+        }
+
+        Long firstProductId = units.keySet().iterator().next();
+        List<Object[]> rows = new ArrayList<>(units.size());
+        for (Map.Entry<Long, long[]> entry : units.entrySet()) {
+            Long productId = entry.getKey();
+            BigDecimal grossAmount = gross.get(productId).setScale(2, RoundingMode.HALF_UP);
+            rows.add(new Object[]{
+                    Date.valueOf(saleDate),
+                    paymentMethod,
+                    categories.get(productId),
+                    productId,
+                    entry.getValue()[0],
+                    grossAmount,
+                    grossAmount.multiply(netFactor).setScale(2, RoundingMode.HALF_UP),
+                    productId.equals(firstProductId) ? 1 : 0
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+
+        if (sale.getCustomer() != null) {
+            jdbcTemplate.update(UPSERT_CUSTOMER_SQL, Date.valueOf(saleDate), sale.getCustomer().getId(),
+                    BigDecimal.valueOf(sale.getTotalAmount()).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * Recomputes the rollup for {@code [from, to]} from the raw sales tables.
+     * Used to backfill history or repair days after manual data fixes.
+     */
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        int deleted = jdbcTemplate.update(DELETE_RANGE_SQL, Date.valueOf(from), Date.valueOf(to));
+        int inserted = jdbcTemplate.update(REBUILD_RANGE_SQL,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        jdbcTemplate.update(DELETE_CUSTOMER_RANGE_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.update(REBUILD_CUSTOMER_RANGE_SQL, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        logger.info("Rebuilt sales rollup for {} to {}: {} rows replaced by {}", from, to, deleted, inserted);
+        return inserted;
+    }
+
+    /**
+     * Totals for the given range, with closed days answered from the rollup and
+     * only today's sales aggregated from the raw rows.
+     */
+    @Transactional(readOnly = true)
+    public Summary summarize(LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        Summary summary = new Summary();
+
+        LocalDate closedTo = endDate != null && endDate.isBefore(today) ? endDate : today.minusDays(1);
+        if (startDate == null || !startDate.isAfter(closedTo)) {
+            summary.add(dailySalesRollupRepository.sumTotals(startDate, closedTo),
+                    dailySalesRollupRepository.sumUnitsSold(startDate, closedTo));
+            summary.addByDate(dailySalesRollupRepository.sumByDate(startDate, closedTo));
+            summary.addByPaymentMethod(dailySalesRollupRepository.sumByPaymentMethod(startDate, closedTo));
+            summary.addByCustomer(dailyCustomerSalesRollupRepository.sumByCustomer(startDate, closedTo));
+        }
+
+        if (endDate == null || !endDate.isBefore(today)) {
+            LocalDateTime rawStart = startDate != null && startDate.isAfter(today)
+                    ? startDate.atStartOfDay()
+                    : today.atStartOfDay();
+            LocalDateTime rawEnd = endDate != null ? endDate.atTime(23, 59, 59) : null;
+            summary.add(saleRepository.sumReportTotals(rawStart, rawEnd, ""),
+                    saleRepository.sumReportItemsSold(rawStart, rawEnd, ""));
+            summary.addByDate(saleRepository.sumReportByDate(rawStart, rawEnd, ""));
+            summary.addByPaymentMethod(saleRepository.sumReportByPaymentMethod(rawStart, rawEnd, ""));
+            summary.addByCustomer(saleRepository.sumReportByCustomer(rawStart, rawEnd, ""));
+        }
+        return summary;
+    }
+
+    public static final class Summary {
+        private long saleCount;
+        private BigDecimal totalSales = BigDecimal.ZERO;
+        private long itemsSold;
+        private final Map<String, BigDecimal> salesByDate = new LinkedHashMap<>();
+        private final Map<String, BigDecimal> salesByPaymentMethod = new LinkedHashMap<>();
+        private final Map<String, BigDecimal> salesByCustomer = new LinkedHashMap<>();
+
+        private void add(SalesTotals totals, Long units) {
+            saleCount += totals.getSaleCount();
+            if (totals.getTotalAmount() != null) {
+                totalSales = totalSales.add(BigDecimal.valueOf(totals.getTotalAmount()));
+            }
+            itemsSold += units != null ? units : 0L;
+        }
+
+        private void addByDate(List<SalesGroupTotal> groups) {
+            merge(salesByDate, groups);
+        }
+
+        private void addByPaymentMethod(List<SalesGroupTotal> groups) {
+            merge(salesByPaymentMethod, groups);
+        }
+
+        private void addByCustomer(List<SalesGroupTotal> groups) {
+            merge(salesByCustomer, groups);
+        }
+
+        private static void merge(Map<String, BigDecimal> target, List<SalesGroupTotal> groups) {
+            for (SalesGroupTotal group : groups) {
+                String label = group.getLabel() != null ? group.getLabel().toString() : UNKNOWN_PAYMENT_METHOD;
+                BigDecimal total = group.getTotal() != null ? BigDecimal.valueOf(group.getTotal()) : BigDecimal.ZERO;
+                target.merge(label, total, BigDecimal::add);
+            }
+        }
+
+        public long getSaleCount() {
+            return saleCount;
+        }
+
+        public BigDecimal getTotalSales() {
+            return totalSales;
+        }
+
+        public long getItemsSold() {
+            return itemsSold;
+        }
+
+        public Map<String, BigDecimal> getSalesByDate() {
+            return salesByDate;
+        }
+
+        public Map<String, BigDecimal> getSalesByPaymentMethod() {
+            return salesByPaymentMethod;
+        }
+
+        public Map<String, BigDecimal> getSalesByCustomer() {
+            return salesByCustomer;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.model.Sale;
+import com.springboot.pos.model.SaleItem;
+import com.springboot.pos.repository.ProductRepository;
+import com.springboot.pos.service.cache.ProductCatalogCache;
+import com.springboot.pos.service.job.ClusterJob;
+import com.springboot.pos.utils.TimerWheel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Records the stock a pending sale holds in {@code stock_reservations} and
+ * releases holds that outlive {@code stock.reservation.ttl-minutes}. Expiry
+ * deadlines sit in an in-memory timer wheel, rebuilt from the table at
+ * startup, which hands due sales to the sweeper in batches. A cluster job
+ * sweeps the table as well, for holds created on a node that has since died.
+ *
+ * <p>An expired hold is only released while its sale is still PENDING; the
+ * sale is failed in the same transaction, under the sale's row lock, so it
+ * cannot be completed against stock that was already given back.</p>
+ */
+@Service
+public class StockReservationService implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_reservations (sale_id, product_id, quantity, expires_at, created_at) " +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP(3))";
+
+    private static final String DELETE_SQL = "DELETE FROM stock_reservations WHERE sale_id = ?";
+
+    private static final String REFUND_POINTS_SQL =
+            "UPDATE customers c JOIN sales s ON s.customer_id = c.id " +
+            "SET c.loyalty_points = c.loyalty_points + s.loyalty_points_used " +
+            "WHERE s.id = ? AND s.status = 'PENDING' AND s.loyalty_points_used > 0";
+
+    private static final String LOAD_DEADLINES_SQL =
+            "SELECT sale_id, MIN(expires_at) AS expires_at FROM stock_reservations GROUP BY sale_id";
+
+    private static final String DUE_SALES_SQL =
+            "SELECT DISTINCT sale_id FROM stock_reservations WHERE expires_at <= CURRENT_TIMESTAMP(3) LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final InventoryLedger inventoryLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final TimerWheel<Long> wheel;
+    private final ScheduledExecutorService sweeper;
+    private final long tickMs;
+
+    private final LongAdder held = new LongAdder();
+    private final LongAdder expiredSales = new LongAdder();
+    private final LongAdder releasedUnits = new LongAdder();
+
+    @Value("${stock.reservation.ttl-minutes:90}")
+    private long ttlMinutes;
+
+    @Value("${stock.reservation.batch-size:100}")
+    private int batchSize;
+
+    @Value("${stock.reservation.sweep-ms:60000}")
+    private long sweepIntervalMs;
+
+    public StockReservationService(JdbcTemplate jdbcTemplate,
+                                   ProductRepository productRepository,
+                                   ProductCatalogCache productCatalogCache,
+                                   InventoryLedger inventoryLedger,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stock.reservation.wheel-size:512}") int wheelSize,
+                                   @Value("${stock.reservation.tick-ms:1000}") long tickMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.inventoryLedger = inventoryLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new TimerWheel<>(wheelSize, tickMs, System.currentTimeMillis());
+        this.tickMs = tickMs;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int[] loaded = {0};
+        jdbcTemplate.query(LOAD_DEADLINES_SQL, rs -> {
+            schedule(rs.getLong("sale_id"), rs.getTimestamp("expires_at").getTime());
+            loaded[0]++;
+        });
+        sweeper.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        logger.info("Stock reservation sweeper started with {} pending sales", loaded[0]);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Records the stock held by a new sale. Joins the sale's transaction; the
+     * expiry is only armed once it commits.
+     */
+    public void hold(Sale sale) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (SaleItem item : sale.getSaleItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes);
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            rows.add(new Object[]{sale.getId(), entry.getKey(), entry.getValue(), new Timestamp(expiresAt)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        held.increment();
+
+        Long saleId = sale.getId();
+        afterCommit(() -> schedule(saleId, expiresAt));
+    }
+
+    /**
+     * Drops the hold of a sale whose stock was committed or released.
+     */
+    public void clear(long saleId) {
+        jdbcTemplate.update(DELETE_SQL, saleId);
+        afterCommit(() -> cancel(saleId));
+    }
+
+    @Override
+    public String getName() {
+        return "reservation-expiry";
+    }
+
+    @Override
+    public long getIntervalMs() {
+        return sweepIntervalMs;
+    }
+
+    // Cluster-wide backstop for holds no live node has in its wheel
+    @Override
+    public int run() {
+        int expired = 0;
+        List<Long> due;
+        do {
+            due = jdbcTemplate.queryForList(DUE_SALES_SQL, Long.class, batchSize);
+            if (!due.isEmpty()) {
+                expired += expire(due);
+            }
+        } while (due.size() == batchSize);
+        return expired;
+    }
+
+    public int getPendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    public long getHeldCount() {
+        return held.sum();
+    }
+
+    public long getExpiredSaleCount() {
+        return expiredSales.sum();
+    }
+
+    public long getReleasedUnitCount() {
+        return releasedUnits.sum();
+    }
+
+    private void tick() {
+        List<Long> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                expire(batch);
+            } catch (Exception e) {
+                // The cluster job picks these up on its next sweep
+                logger.error("Failed to release {} expired reservations: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private int expire(List<Long> saleIds) {
+        Integer expired = transactionTemplate.execute(status -> {
+            String placeholders = saleIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+            Object[] ids = saleIds.toArray();
+
+            // Sale rows first, in id order, the same lock order completePendingSale takes
+            Set<Long> pendingSales = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT id FROM sales WHERE id IN (" + placeholders + ") AND status = 'PENDING' " +
+                    "ORDER BY id FOR UPDATE", Long.class, ids));
+
+            SortedMap<Long, Integer> released = new TreeMap<>();
+            Map<Long, Map<Long, Integer>> releasedBySale = new HashMap<>();
+            Set<Long> dueSales = new HashSet<>();
+            jdbcTemplate.query("SELECT sale_id, product_id, quantity FROM stock_reservations " +
+                    "WHERE sale_id IN (" + placeholders + ") AND expires_at <= CURRENT_TIMESTAMP(3)", rs -> {
+                long saleId = rs.getLong("sale_id");
+                dueSales.add(saleId);
+                if (pendingSales.contains(saleId)) {
+                    released.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+                    releasedBySale.computeIfAbsent(saleId, id -> new HashMap<>())
+                            .merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+                }
+            }, ids);
+            if (dueSales.isEmpty()) {
+                return 0;
+            }
+
+            if (!released.isEmpty()) {
+                productRepository.releaseReservedStock(released);
+                productCatalogCache.evictStock(released.keySet());
+                releasedBySale.forEach(inventoryLedger::recordRelease);
+            }
+            List<Object[]> failedSales = new ArrayList<>();
+            List<Object[]> cleared = new ArrayList<>();
+            for (Long saleId : dueSales) {
+                if (pendingSales.contains(saleId)) {
+                    failedSales.add(new Object[]{saleId});
+                }
+                cleared.add(new Object[]{saleId});
+            }
+            // Loyalty points taken when the sale was created go back to the customer
+            jdbcTemplate.batchUpdate(REFUND_POINTS_SQL, failedSales);
+            // The payment, if it still resolves later, finds the sale FAILED and leaves it alone
+            jdbcTemplate.batchUpdate("UPDATE sales SET status = 'FAILED' WHERE id = ? AND status = 'PENDING'", failedSales);
+            jdbcTemplate.batchUpdate(DELETE_SQL, cleared);
+
+            expiredSales.add(failedSales.size());
+            releasedUnits.add(released.values().stream().mapToInt(Integer::intValue).sum());
+            if (!failedSales.isEmpty()) {
+                logger.warn("Released expired stock holds of {} pending sales", failedSales.size());
+            }
+            return dueSales.size();
+        });
+        return expired != null ? expired : 0;
+    }
+
+    private void schedule(long saleId, long deadlineMs) {
+        synchronized (wheel) {
+            wheel.schedule(saleId, deadlineMs);
+        }
+    }
+
+    private void cancel(long saleId) {
+        synchronized (wheel) {
+            wheel.cancel(saleId);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.springboot.pos.service;
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.TransactionDto;
 
 public interface TransactionService {
     PagedResponse<TransactionDto> getAllTransactions(int pageNo, int pageSize, String sortBy, String sortDir);
 
+    CursorResponse<TransactionDto> scrollTransactions(String after, int limit, String sortBy, String sortDir);
+
 }
@@ -0,0 +1,217 @@
+package com.springboot.pos.service.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small in-process LRU cache with a size bound and a time-to-live, counting
+ * hits, misses, evictions and invalidations.
+ *
+ * <p>Values are loaded outside the lock. Each key being loaded has a version
+ * that invalidating or putting that key bumps; a load whose key changed
+ * meanwhile is returned to its caller but not stored. Loads of other keys are
+ * unaffected.</p>
+ */
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Access-ordered, guarded by this
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // Keys with a load in flight, guarded by this
+    private final Map<K, LoadStamp> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BoundedCache(String name, int maxSize, long ttl, TimeUnit unit) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        Map<K, Long> versions;
+        synchronized (this) {
+            V cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            versions = beginLoad(Set.of(key));
+        }
+        V loaded = null;
+        try {
+            loaded = loader.apply(key);
+        } finally {
+            finishLoad(loaded != null ? Map.of(key, loaded) : Map.of(), versions);
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached values for {@code keys}, loading all missing keys with
+     * a single call to {@code loader}. Keys the loader does not return are
+     * absent from the result.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        Map<K, Long> versions;
+        synchronized (this) {
+            for (K key : keys) {
+                V cached = lookup(key);
+                if (cached != null) {
+                    result.put(key, cached);
+                } else {
+                    missing.add(key);
+                }
+            }
+            versions = beginLoad(missing);
+        }
+        if (!missing.isEmpty()) {
+            Map<K, V> loaded = Map.of();
+            try {
+                loaded = loader.apply(missing);
+                result.putAll(loaded);
+            } finally {
+                finishLoad(loaded, versions);
+            }
+        }
+        return result;
+    }
+
+    public synchronized void put(K key, V value) {
+        bump(key);
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void invalidate(K key) {
+        bump(key);
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        loading.forEach((key, stamp) -> {
+            if (predicate.test(key)) {
+                stamp.version++;
+            }
+        });
+        entries.keySet().removeIf(key -> {
+            if (predicate.test(key)) {
+                invalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public synchronized void invalidateAll() {
+        loading.values().forEach(stamp -> stamp.version++);
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    private V lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() - System.nanoTime() < 0) {
+            entries.remove(key);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    // Caller holds the lock
+    private Map<K, Long> beginLoad(Set<K> keys) {
+        Map<K, Long> versions = new HashMap<>();
+        for (K key : keys) {
+            LoadStamp stamp = loading.computeIfAbsent(key, k -> new LoadStamp());
+            stamp.loaders++;
+            versions.put(key, stamp.version);
+        }
+        return versions;
+    }
+
+    private synchronized void finishLoad(Map<K, V> values, Map<K, Long> versions) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        versions.forEach((key, version) -> {
+            LoadStamp stamp = loading.get(key);
+            V value = values.get(key);
+            if (value != null && stamp.version == version) {
+                entries.put(key, new Entry<>(value, expiresAt));
+            }
+            if (--stamp.loaders == 0) {
+                loading.remove(key);
+            }
+        });
+    }
+
+    private void bump(K key) {
+        LoadStamp stamp = loading.get(key);
+        if (stamp != null) {
+            stamp.version++;
+        }
+    }
+
+    private static final class LoadStamp {
+        private long version;
+        private int loaders;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
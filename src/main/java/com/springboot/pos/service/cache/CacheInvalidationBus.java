@@ -0,0 +1,220 @@
+package com.springboot.pos.service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Cross-node cache invalidation over the {@code cache_invalidations} table.
+ * Writers append a row in their own transaction; each node polls for rows
+ * above the last id it applied and hands rows from other nodes to every
+ * {@link CacheInvalidationListener}.
+ *
+ * <p>Identity ids are handed out at insert but become visible at commit, so a
+ * slower transaction can commit an id below one already applied. Skipped ids
+ * are kept as gaps and re-read on each poll until they appear or
+ * {@code cache.invalidation.gap-timeout-ms} passes (rolled back inserts never
+ * appear).</p>
+ */
+@Service
+public class CacheInvalidationBus {
+
+    public static final String PRODUCT = "product";
+    public static final String CATEGORY = "category";
+    public static final String SUPPLIER = "supplier";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_invalidations (region, entity_key, origin_node, created_at) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP(3))";
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, region, entity_key, origin_node, created_at, CURRENT_TIMESTAMP(3) AS polled_at " +
+            "FROM cache_invalidations ";
+
+    // Bounds gap tracking after a large id jump, e.g. a long outage of this node
+    private static final int MAX_TRACKED_GAPS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final String nodeId;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long retentionMinutes;
+
+    // Only touched by the poller
+    private boolean started;
+    private long lastAppliedId;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+    private volatile long lastLagMs;
+    private volatile long maxLagMs;
+    private volatile long lastPollAt;
+    private volatile int openGaps;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                ObjectProvider<CacheInvalidationListener> listeners,
+                                @Value("${cache.invalidation.node-id:}") String nodeId,
+                                @Value("${cache.invalidation.batch-size:500}") int batchSize,
+                                @Value("${cache.invalidation.gap-timeout-ms:30000}") long gapTimeoutMs,
+                                @Value("${cache.invalidation.retention-minutes:60}") long retentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listeners = listeners;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    /**
+     * Records that {@code key} in {@code region} changed. Joins the caller's
+     * transaction, so other nodes only see it once the write commits.
+     */
+    public void publish(String region, Object key) {
+        jdbcTemplate.update(INSERT_SQL, region, key != null ? key.toString() : null, nodeId);
+        published.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-ms:500}")
+    public synchronized void poll() {
+        try {
+            if (!started) {
+                // Caches start empty, so earlier rows are of no interest to this node
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidations", Long.class);
+                lastAppliedId = maxId != null ? maxId : 0L;
+                started = true;
+                logger.info("Cache invalidation bus started as node {} at id {}", nodeId, lastAppliedId);
+            }
+            if (!gaps.isEmpty()) {
+                String placeholders = gaps.keySet().stream().map(id -> "?").collect(Collectors.joining(", "));
+                apply(jdbcTemplate.query(SELECT_COLUMNS + "WHERE id IN (" + placeholders + ")",
+                        this::mapRow, gaps.keySet().toArray()));
+                expireGaps();
+            }
+
+            List<Row> rows;
+            do {
+                rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?",
+                        this::mapRow, lastAppliedId, batchSize);
+                apply(rows);
+            } while (rows.size() == batchSize);
+            openGaps = gaps.size();
+            lastPollAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            pollFailures.increment();
+            logger.error("Failed to poll cache invalidations: {}", e.getMessage());
+        }
+    }
+
+    public int purgeExpiredRows() {
+        int purged = jdbcTemplate.update(
+                "DELETE FROM cache_invalidations WHERE created_at < CURRENT_TIMESTAMP(3) - INTERVAL ? MINUTE",
+                retentionMinutes);
+        if (purged > 0) {
+            logger.info("Purged {} cache invalidation rows", purged);
+        }
+        return purged;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+
+    public long getPollFailureCount() {
+        return pollFailures.sum();
+    }
+
+    /**
+     * Time between the newest applied row being written and this node reading it.
+     */
+    public long getLastLagMs() {
+        return lastLagMs;
+    }
+
+    public long getMaxLagMs() {
+        return maxLagMs;
+    }
+
+    public long getLastPollAt() {
+        return lastPollAt;
+    }
+
+    public int getOpenGapCount() {
+        return openGaps;
+    }
+
+    private void apply(List<Row> rows) {
+        for (Row row : rows) {
+            gaps.remove(row.id());
+            if (row.id() > lastAppliedId) {
+                long now = System.currentTimeMillis();
+                for (long missing = Math.max(lastAppliedId + 1, row.id() - MAX_TRACKED_GAPS); missing < row.id(); missing++) {
+                    gaps.put(missing, now);
+                }
+                lastAppliedId = row.id();
+            }
+
+            long lag = row.polledAt().getTime() - row.createdAt().getTime();
+            lastLagMs = lag;
+            maxLagMs = Math.max(maxLagMs, lag);
+
+            if (nodeId.equals(row.originNode())) {
+                continue;
+            }
+            for (CacheInvalidationListener listener : listeners) {
+                try {
+                    listener.onRemoteInvalidation(row.region(), row.entityKey());
+                } catch (Exception e) {
+                    logger.error("Cache listener failed for {} {}: {}", row.region(), row.entityKey(), e.getMessage());
+                }
+            }
+            applied.increment();
+        }
+    }
+
+    private void expireGaps() {
+        long cutoff = System.currentTimeMillis() - gapTimeoutMs;
+        Iterator<Map.Entry<Long, Long>> it = gaps.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue() < cutoff) {
+                it.remove();
+            }
+        }
+    }
+
+    private Row mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new Row(rs.getLong("id"), rs.getString("region"), rs.getString("entity_key"),
+                rs.getString("origin_node"), rs.getTimestamp("created_at"), rs.getTimestamp("polled_at"));
+    }
+
+    private record Row(long id, String region, String entityKey, String originNode,
+                       Timestamp createdAt, Timestamp polledAt) {
+    }
+}
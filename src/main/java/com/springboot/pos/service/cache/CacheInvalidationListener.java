@@ -0,0 +1,14 @@
+package com.springboot.pos.service.cache;
+
+/**
+ * Implemented by in-process caches that must drop entries written on another
+ * node. Called from the invalidation poller, outside any transaction.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * @param region the region the write was published under
+     * @param key    the entity key, or {@code null} when the whole region changed
+     */
+    void onRemoteInvalidation(String region, String key);
+}
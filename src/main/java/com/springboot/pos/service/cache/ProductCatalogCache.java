@@ -0,0 +1,157 @@
+package com.springboot.pos.service.cache;
+
+import com.springboot.pos.payload.PagedResponse;
+import com.springboot.pos.payload.ProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches for the product catalog. Catalog fields (name, price, category, ...)
+ * and stock counts are cached separately: stock changes with every sale and
+ * only evicts the stock entry, so catalog entries and listing pages stay
+ * cached while stock moves.
+ *
+ * <p>Evictions are applied after the surrounding transaction commits, so a
+ * concurrent reader cannot put the pre-commit row back into the cache.</p>
+ */
+@Component
+public class ProductCatalogCache implements CacheInvalidationListener {
+
+    public record StockLevel(int stock, int reservedStock) {
+    }
+
+    public record PageKey(String category, int pageNo, int pageSize, String sortBy, String sortDir) {
+    }
+
+    private final BoundedCache<Long, ProductDto> products;
+    private final BoundedCache<Long, StockLevel> stock;
+    private final BoundedCache<PageKey, PagedResponse<ProductDto>> pages;
+
+    public ProductCatalogCache(@Value("${product.cache.max-size:10000}") int maxSize,
+                               @Value("${product.cache.ttl-seconds:300}") long ttlSeconds,
+                               @Value("${product.cache.stock-ttl-seconds:5}") long stockTtlSeconds,
+                               @Value("${product.cache.page-max-size:500}") int pageMaxSize) {
+        this.products = new BoundedCache<>("products", maxSize, ttlSeconds, TimeUnit.SECONDS);
+        this.stock = new BoundedCache<>("product-stock", maxSize, stockTtlSeconds, TimeUnit.SECONDS);
+        this.pages = new BoundedCache<>("product-pages", pageMaxSize, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Page key for a listing; {@code null}, empty and "All" all mean the
+     * unfiltered listing, matching {@code getAllProducts}.
+     */
+    public static PageKey pageKey(String category, int pageNo, int pageSize, String sortBy, String sortDir) {
+        return new PageKey(categoryKey(category), pageNo, pageSize, sortBy, sortDir.toLowerCase(Locale.ROOT));
+    }
+
+    public ProductDto getProduct(long id, Function<Long, ProductDto> loader) {
+        return products.get(id, loader);
+    }
+
+    public Map<Long, StockLevel> getStock(Collection<Long> ids, Function<Set<Long>, Map<Long, StockLevel>> loader) {
+        return stock.getAll(ids, loader);
+    }
+
+    public PagedResponse<ProductDto> getPage(PageKey key, Supplier<PagedResponse<ProductDto>> loader) {
+        return pages.get(key, k -> loader.get());
+    }
+
+
+    /**
+     * Evicts a product whose catalog fields changed, together with the listing
+     * pages of every category it was or is now in.
+     */
+    public void evictProduct(long id, String... categories) {
+        afterCommit(() -> {
+            products.invalidate(id);
+            stock.invalidate(id);
+            evictPages(categories);
+        });
+    }
+
+    public void evictStock(Collection<Long> ids) {
+        List<Long> snapshot = List.copyOf(ids);
+        afterCommit(() -> snapshot.forEach(stock::invalidate));
+    }
+
+    public void evictAll() {
+        afterCommit(() -> {
+            products.invalidateAll();
+            stock.invalidateAll();
+            pages.invalidateAll();
+        });
+    }
+
+    /**
+     * Writes from other nodes only carry the product id, so every listing page
+     * is dropped rather than just those of the product's categories. Category
+     * and supplier names are copied into product entries, so those regions
+     * drop the whole catalog.
+     */
+    @Override
+    public void onRemoteInvalidation(String region, String key) {
+        switch (region) {
+            case CacheInvalidationBus.PRODUCT -> {
+                if (key == null) {
+                    products.invalidateAll();
+                    stock.invalidateAll();
+                } else {
+                    products.invalidate(Long.valueOf(key));
+                    stock.invalidate(Long.valueOf(key));
+                }
+                pages.invalidateAll();
+            }
+            case CacheInvalidationBus.CATEGORY, CacheInvalidationBus.SUPPLIER -> {
+                products.invalidateAll();
+                pages.invalidateAll();
+            }
+            default -> {
+            }
+        }
+    }
+
+    public List<BoundedCache<?, ?>> getCaches() {
+        return List.of(products, stock, pages);
+    }
+
+    private void evictPages(String... categories) {
+        Set<String> affected = new HashSet<>();
+        affected.add(categoryKey(null));
+        for (String category : categories) {
+            affected.add(categoryKey(category));
+        }
+        pages.invalidateIf(key -> affected.contains(key.category()));
+    }
+
+    private static String categoryKey(String category) {
+        if (category == null || category.isEmpty() || "All".equalsIgnoreCase(category)) {
+            return "";
+        }
+        return category.toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
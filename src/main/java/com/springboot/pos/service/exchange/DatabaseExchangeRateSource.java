@@ -0,0 +1,30 @@
+package com.springboot.pos.service.exchange;
+
+import com.springboot.pos.repository.ExchangeRateRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads quotes from the {@code exchange_rates} table, so rates can be changed
+ * with an UPDATE and picked up on the next refresh.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange.rates.source", havingValue = "db")
+public class DatabaseExchangeRateSource implements ExchangeRateSource {
+
+    private final ExchangeRateRepository exchangeRateRepository;
+
+    public DatabaseExchangeRateSource(ExchangeRateRepository exchangeRateRepository) {
+        this.exchangeRateRepository = exchangeRateRepository;
+    }
+
+    @Override
+    public List<ExchangeRateQuote> loadQuotes() {
+        return exchangeRateRepository.findAll().stream()
+                .map(rate -> new ExchangeRateQuote(rate.getBaseCurrency(), rate.getQuoteCurrency(), rate.getRate()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,9 @@
+package com.springboot.pos.service.exchange;
+
+import java.math.BigDecimal;
+
+/**
+ * One direct quote: 1 unit of {@code baseCurrency} buys {@code rate} units of {@code quoteCurrency}.
+ */
+public record ExchangeRateQuote(String baseCurrency, String quoteCurrency, BigDecimal rate) {
+}
@@ -0,0 +1,60 @@
+package com.springboot.pos.service.exchange;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Converts amounts using the current {@link ExchangeRateTable} snapshot. Readers
+ * never lock: a refresh builds a complete new table and swaps the reference,
+ * and a failed refresh keeps serving the previous rates.
+ */
+@Service
+public class ExchangeRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
+
+    public static final String BASE_CURRENCY = "KES";
+
+    private final ExchangeRateSource source;
+    private final AtomicReference<ExchangeRateTable> table =
+            new AtomicReference<>(ExchangeRateTable.build(List.of(), BASE_CURRENCY));
+
+    public ExchangeRateService(ExchangeRateSource source) {
+        this.source = source;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${exchange.rates.refresh-ms:300000}",
+            initialDelayString = "${exchange.rates.refresh-ms:300000}")
+    public void refresh() {
+        try {
+            ExchangeRateTable refreshed = ExchangeRateTable.build(source.loadQuotes(), BASE_CURRENCY);
+            table.set(refreshed);
+            logger.debug("Loaded exchange rates for {} currencies", refreshed.currencyCount());
+        } catch (Exception e) {
+            logger.error("Failed to refresh exchange rates, keeping previous rates: {}", e.getMessage());
+        }
+    }
+
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) return amount;
+
+        BigDecimal rate = table.get().rate(fromCurrency, toCurrency);
+        if (rate == null) {
+            throw new IllegalArgumentException("Unsupported currency conversion: " + fromCurrency + " to " + toCurrency);
+        }
+        return amount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+}
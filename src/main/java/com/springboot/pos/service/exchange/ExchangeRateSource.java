@@ -0,0 +1,11 @@
+package com.springboot.pos.service.exchange;
+
+import java.util.List;
+
+/**
+ * Supplies the direct quotes the exchange rate table is built from. Selected
+ * with {@code exchange.rates.source} ({@code stub}, {@code file} or {@code db}).
+ */
+public interface ExchangeRateSource {
+    List<ExchangeRateQuote> loadQuotes() throws Exception;
+}
@@ -0,0 +1,98 @@
+package com.springboot.pos.service.exchange;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of every convertible currency pair. Pairs without a
+ * direct quote are triangulated through the pivot currency when the table is
+ * built, so a lookup is two index reads and an array access.
+ */
+final class ExchangeRateTable {
+
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    private final Map<String, Integer> indexByCurrency;
+    private final BigDecimal[] rates; // indexed by pair id: from * size + to
+    private final int size;
+
+    private ExchangeRateTable(Map<String, Integer> indexByCurrency, BigDecimal[] rates) {
+        this.indexByCurrency = indexByCurrency;
+        this.rates = rates;
+        this.size = indexByCurrency.size();
+    }
+
+    static ExchangeRateTable build(List<ExchangeRateQuote> quotes, String pivot) {
+        Set<String> currencies = new LinkedHashSet<>();
+        currencies.add(pivot);
+        for (ExchangeRateQuote quote : quotes) {
+            currencies.add(quote.baseCurrency());
+            currencies.add(quote.quoteCurrency());
+        }
+
+        Map<String, Integer> index = new HashMap<>();
+        for (String currency : currencies) {
+            index.put(currency, index.size());
+        }
+        int size = index.size();
+
+        BigDecimal[] direct = new BigDecimal[size * size];
+        for (ExchangeRateQuote quote : quotes) {
+            if (quote.rate() == null || quote.rate().signum() <= 0) {
+                throw new IllegalArgumentException("Invalid rate for " + quote.baseCurrency() + "-" + quote.quoteCurrency());
+            }
+            direct[index.get(quote.baseCurrency()) * size + index.get(quote.quoteCurrency())] = quote.rate();
+        }
+
+        int p = index.get(pivot);
+        BigDecimal[] toPivot = new BigDecimal[size];
+        BigDecimal[] fromPivot = new BigDecimal[size];
+        for (int c = 0; c < size; c++) {
+            toPivot[c] = c == p ? BigDecimal.ONE : orInverse(direct[c * size + p], direct[p * size + c]);
+            fromPivot[c] = c == p ? BigDecimal.ONE : orInverse(direct[p * size + c], direct[c * size + p]);
+        }
+
+        BigDecimal[] rates = new BigDecimal[size * size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                int pair = from * size + to;
+                if (from == to) {
+                    rates[pair] = BigDecimal.ONE;
+                } else if (direct[pair] != null) {
+                    rates[pair] = direct[pair];
+                } else if (toPivot[from] != null && fromPivot[to] != null) {
+                    rates[pair] = toPivot[from].multiply(fromPivot[to], PRECISION);
+                }
+            }
+        }
+        return new ExchangeRateTable(Map.copyOf(index), rates);
+    }
+
+    /**
+     * Returns the rate from {@code from} to {@code to}, or {@code null} when the pair is not convertible.
+     */
+    BigDecimal rate(String from, String to) {
+        Integer fromIndex = indexByCurrency.get(from);
+        Integer toIndex = indexByCurrency.get(to);
+        if (fromIndex == null || toIndex == null) {
+            return null;
+        }
+        return rates[fromIndex * size + toIndex];
+    }
+
+    int currencyCount() {
+        return size;
+    }
+
+    private static BigDecimal orInverse(BigDecimal rate, BigDecimal reverseRate) {
+        if (rate != null) {
+            return rate;
+        }
+        return reverseRate != null ? BigDecimal.ONE.divide(reverseRate, PRECISION) : null;
+    }
+}
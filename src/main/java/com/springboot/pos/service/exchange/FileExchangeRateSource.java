@@ -0,0 +1,51 @@
+package com.springboot.pos.service.exchange;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Reads quotes from a properties file with one {@code FROM-TO=rate} entry per
+ * line, e.g. {@code USD-KES=128.50}. The file is re-read on every refresh.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange.rates.source", havingValue = "file")
+public class FileExchangeRateSource implements ExchangeRateSource {
+
+    private final String path;
+
+    public FileExchangeRateSource(@Value("${exchange.rates.file}") String path) {
+        this.path = path;
+    }
+
+    @Override
+    public List<ExchangeRateQuote> loadQuotes() throws Exception {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        List<ExchangeRateQuote> quotes = new ArrayList<>();
+        for (String pair : properties.stringPropertyNames()) {
+            String[] currencies = pair.split("-");
+            if (currencies.length != 2) {
+                throw new IllegalArgumentException("Invalid currency pair in " + path + ": " + pair);
+            }
+            quotes.add(new ExchangeRateQuote(
+                    currencies[0].trim(),
+                    currencies[1].trim(),
+                    new BigDecimal(properties.getProperty(pair).trim())
+            ));
+        }
+        return quotes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.springboot.pos.service.exchange;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Fixed rates for local development and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange.rates.source", havingValue = "stub", matchIfMissing = true)
+public class StubExchangeRateSource implements ExchangeRateSource {
+
+    @Override
+    public List<ExchangeRateQuote> loadQuotes() {
+        return List.of(
+                new ExchangeRateQuote("KES", "USD", BigDecimal.valueOf(0.0078)),
+                new ExchangeRateQuote("USD", "KES", BigDecimal.valueOf(128.50))
+        );
+    }
+}
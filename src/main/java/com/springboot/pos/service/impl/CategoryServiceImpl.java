@@ -6,12 +6,14 @@ import com.springboot.pos.payload.CategoryDto;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.repository.CategoryRepository;
 import com.springboot.pos.service.CategoryService;
+import com.springboot.pos.service.cache.CacheInvalidationBus;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,16 +22,21 @@ public class CategoryServiceImpl implements CategoryService {
 
     private CategoryRepository categoryRepository;
     private ModelMapper mapper;
+    private CacheInvalidationBus cacheInvalidationBus;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository, ModelMapper mapper) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ModelMapper mapper,
+                               CacheInvalidationBus cacheInvalidationBus) {
         this.categoryRepository = categoryRepository;
         this.mapper = mapper;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     @Override
+    @Transactional
     public CategoryDto createCategory(CategoryDto categoryDto) {
         Category category = mapToEntity(categoryDto);
         Category newCategory = categoryRepository.save(category);
+        cacheInvalidationBus.publish(CacheInvalidationBus.CATEGORY, newCategory.getId());
 
         //convert entity to DTO
         CategoryDto categoryResponse = mapToDTO(newCategory);
@@ -61,9 +68,11 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional
     public void deleteCategoryById(long id) {
         Category category = categoryRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
         categoryRepository.delete(category);
+        cacheInvalidationBus.publish(CacheInvalidationBus.CATEGORY, id);
     }
 
     private CategoryDto mapToDTO(Category category) {
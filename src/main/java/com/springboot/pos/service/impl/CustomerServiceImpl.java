@@ -2,15 +2,18 @@ package com.springboot.pos.service.impl;
 
 import com.springboot.pos.exception.ResourceNotFoundException;
 import com.springboot.pos.model.Customer;
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.CustomerDto;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.repository.CustomerRepository;
 import com.springboot.pos.service.CustomerService;
+import com.springboot.pos.utils.KeysetCursor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -60,6 +63,14 @@ public class CustomerServiceImpl implements CustomerService {
         return customerResponse;
     }
 
+    @Override
+    public CursorResponse<CustomerDto> scrollCustomers(String after, int limit, String sortBy, String sortDir) {
+        Sort sort = KeysetCursor.sort(Customer.class, sortBy, sortDir);
+        Window<Customer> customers = customerRepository.findAllBy(
+                KeysetCursor.decode(after, Customer.class, sort), sort, KeysetCursor.limit(limit));
+        return KeysetCursor.toResponse(customers, limit, this::mapToDTO);
+    }
+
     @Override
     public CustomerDto getCustomerById(long id) {
         Customer customer = customerRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
@@ -30,7 +30,7 @@ public class EmailNotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    public void notifyAdmin(String message) {
+    public boolean notifyAdmin(String message) {
         try {
             SimpleMailMessage mailMessage = new SimpleMailMessage();
             mailMessage.setTo(adminEmail);
@@ -39,13 +39,15 @@ public class EmailNotificationServiceImpl implements NotificationService {
             mailMessage.setFrom("no-reply@yourdomain.com");
             mailSender.send(mailMessage);
             logger.info("Admin notification sent to {}: {}", adminEmail, message);
+            return true;
         } catch (MailException e) {
             logger.error("Failed to send admin notification to {}: {}", adminEmail, e.getMessage());
+            return false;
         }
     }
 
     @Override
-    public void notifyPurchasing(String message) {
+    public boolean notifyPurchasing(String message) {
         try {
             SimpleMailMessage mailMessage = new SimpleMailMessage();
             mailMessage.setTo(purchasingEmail);
@@ -54,8 +56,10 @@ public class EmailNotificationServiceImpl implements NotificationService {
             mailMessage.setFrom("no-reply@yourdomain.com");
             mailSender.send(mailMessage);
             logger.info("Purchasing notification sent to {}: {}", purchasingEmail, message);
+            return true;
         } catch (MailException e) {
             logger.error("Failed to send purchasing notification to {}: {}", purchasingEmail, e.getMessage());
+            return false;
         }
     }
 
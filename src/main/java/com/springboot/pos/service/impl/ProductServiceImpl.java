@@ -1,11 +1,18 @@
 package com.springboot.pos.service.impl;
 
+import com.springboot.pos.exception.PosApiException;
 import com.springboot.pos.exception.ResourceNotFoundException;
 import com.springboot.pos.model.*;
 import com.springboot.pos.payload.*;
 import com.springboot.pos.repository.*;
-import com.springboot.pos.service.NotificationService;
+import com.springboot.pos.service.HotStockService;
+import com.springboot.pos.service.InventoryLedger;
+import com.springboot.pos.service.LowStockAlertDispatcher;
 import com.springboot.pos.service.ProductService;
+import com.springboot.pos.service.SaleProductContext;
+import com.springboot.pos.service.cache.CacheInvalidationBus;
+import com.springboot.pos.service.cache.ProductCatalogCache;
+import com.springboot.pos.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
@@ -13,7 +20,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -23,7 +33,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,8 +50,12 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final SupplierRepository supplierRepository;
-    private final NotificationService emailNotificationService;
     private final ModelMapper mapper;
+    private final ProductCatalogCache productCatalogCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final HotStockService hotStockService;
+    private final InventoryLedger inventoryLedger;
+    private final LowStockAlertDispatcher lowStockAlertDispatcher;
 
     private static final String IMAGE_UPLOAD_DIR = "src/main/resources/static/images/";
     private static final String IMAGE_ACCESS_PATH = "/images/";
@@ -63,6 +84,7 @@ public class ProductServiceImpl implements ProductService {
         product.setStatus(productDto.getStatus());
         product.setDescription(productDto.getDescription());
         product.setReservedStock(productDto.getReservedStock());
+        product.setHotSku(productDto.isHotSku());
         product.setLowStockThreshold(productDto.getLowStockThreshold());
         product.setLowStockMinimumOrder(productDto.getLowStockMinimumOrder());
         product.setCategory(category);
@@ -76,18 +98,45 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product newProduct = productRepository.save(product);
+        inventoryLedger.snapshot(newProduct.getId(), newProduct.getStock());
+        productCatalogCache.evictProduct(newProduct.getId(), category.getName());
+        cacheInvalidationBus.publish(CacheInvalidationBus.PRODUCT, newProduct.getId());
         return mapToDTO(newProduct);
     }
 
     @Override
     public ProductDto getProductById(long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
-        return mapToDTO(product);
+        ProductDto product = productCatalogCache.getProduct(id, productId ->
+                productRepository.findAllById(List.of(productId)).stream()
+                        .findFirst()
+                        .map(this::mapToDTO)
+                        .orElse(null));
+        if (product == null) {
+            throw new ResourceNotFoundException("Product", "id", id);
+        }
+        return withCurrentStock(List.of(product)).get(0);
     }
 
     @Override
     public PagedResponse<ProductDto> getAllProducts(int pageNo, int pageSize, String sortBy, String sortDir, String category) {
+        // A page ordered by stock changes with every sale, so it is not worth caching
+        if ("stock".equals(sortBy) || "reservedStock".equals(sortBy)) {
+            return loadProductPage(pageNo, pageSize, sortBy, sortDir, category);
+        }
+        PagedResponse<ProductDto> page = productCatalogCache.getPage(
+                ProductCatalogCache.pageKey(category, pageNo, pageSize, sortBy, sortDir),
+                () -> loadProductPage(pageNo, pageSize, sortBy, sortDir, category));
+        return new PagedResponse<>(
+                withCurrentStock(page.getContent()),
+                page.getPageNo(),
+                page.getPageSize(),
+                page.getTotalElements(),
+                page.getTotalPages(),
+                page.isLast()
+        );
+    }
+
+    private PagedResponse<ProductDto> loadProductPage(int pageNo, int pageSize, String sortBy, String sortDir, String category) {
         Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
@@ -116,11 +165,26 @@ public class ProductServiceImpl implements ProductService {
         return productResponse;
     }
 
+    @Override
+    public CursorResponse<ProductDto> scrollProducts(String after, int limit, String sortBy, String sortDir, String category) {
+        Sort sort = KeysetCursor.sort(Product.class, sortBy, sortDir);
+        ScrollPosition position = KeysetCursor.decode(after, Product.class, sort);
+
+        Window<Product> products;
+        if (category != null && !category.isEmpty() && !"All".equalsIgnoreCase(category)) {
+            products = productRepository.findByCategoryNameIgnoreCase(category, position, sort, KeysetCursor.limit(limit));
+        } else {
+            products = productRepository.findAllBy(position, sort, KeysetCursor.limit(limit));
+        }
+        return KeysetCursor.toResponse(products, limit, this::mapToDTO);
+    }
+
     @Override
     @Transactional
     public ProductDto updateProduct(ProductDto productDto, long id, MultipartFile image) throws IOException {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        String previousCategory = product.getCategory() != null ? product.getCategory().getName() : null;
 
         Category category = categoryRepository.findByName(productDto.getCategoryName())
                 .orElseGet(() -> {
@@ -138,8 +202,9 @@ public class ProductServiceImpl implements ProductService {
 
         product.setName(productDto.getName());
         product.setPrice(productDto.getPrice());
-        product.setStock(productDto.getStock());
-        product.setReservedStock(productDto.getReservedStock());
+        // Stock and reserved stock are left alone: they only change through sales,
+        // restocks and stock-takes, each recorded in the inventory ledger
+        product.setHotSku(productDto.isHotSku());
         product.setLowStockThreshold(productDto.getLowStockThreshold());
         product.setLowStockMinimumOrder(productDto.getLowStockMinimumOrder());
         product.setStatus(productDto.getStatus());
@@ -155,6 +220,10 @@ public class ProductServiceImpl implements ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
+        // The threshold may have moved past the current stock either way
+        lowStockAlertDispatcher.submit(List.of(id));
+        productCatalogCache.evictProduct(id, previousCategory, category.getName());
+        cacheInvalidationBus.publish(CacheInvalidationBus.PRODUCT, id);
         return mapToDTO(updatedProduct);
     }
 
@@ -167,49 +236,97 @@ public class ProductServiceImpl implements ProductService {
             deleteImage(product.getImageUrl());
         }
         productRepository.delete(product);
+        productCatalogCache.evictProduct(id, product.getCategory() != null ? product.getCategory().getName() : null);
+        cacheInvalidationBus.publish(CacheInvalidationBus.PRODUCT, id);
     }
 
     @Transactional
-    public void reserveStockForSale(SaleRequestDto saleRequest) {
-        for (SaleItemRequestDto itemDto : saleRequest.getItems()) {
-            Product product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", itemDto.getProductId()));
-
-            int availableStock = product.getStock() - product.getReservedStock();
-            if (availableStock < itemDto.getQuantity()) {
-                throw new IllegalArgumentException(
-                        "Insufficient stock for product: " + product.getName() +
-                                ". Available: " + availableStock +
-                                ", Requested: " + itemDto.getQuantity()
-                );
+    public SaleProductContext loadProductsForSale(SaleRequestDto saleRequest) {
+        Set<Long> productIds = saleRequest.getItems().stream()
+                .map(SaleItemRequestDto::getProductId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product", "id", productId);
             }
-            product.setReservedStock(product.getReservedStock() + itemDto.getQuantity());
-            productRepository.save(product);
         }
+        return new SaleProductContext(products);
     }
 
     @Transactional
-    public void releaseReservedStock(SaleRequestDto saleRequest) {
-        for (SaleItemRequestDto itemDto : saleRequest.getItems()) {
-            Product product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", itemDto.getProductId()));
+    public void reserveStockForSale(SaleRequestDto saleRequest) {
+        reserveStockForSale(saleRequest, loadProductsForSale(saleRequest));
+    }
 
-            product.setReservedStock(product.getReservedStock() - itemDto.getQuantity());
-            if (product.getReservedStock() < 0) {
-                product.setReservedStock(0);
+    @Transactional
+    public void reserveStockForSale(SaleRequestDto saleRequest, SaleProductContext products) {
+        // Hot products come out of this node's allotment first, before any product row is locked
+        SortedMap<Long, Integer> quantities = rowQuantities(quantitiesByProduct(saleRequest), (productId, quantity) -> {
+            if (!hotStockService.reserve(productId, quantity)) {
+                throw insufficientStock(products.get(productId), quantity);
             }
-            productRepository.save(product);
+        });
+        if (quantities.isEmpty()) {
+            return;
         }
+        List<Long> rejected = productRepository.reserveStock(quantities);
+        productCatalogCache.evictStock(quantities.keySet());
+        if (!rejected.isEmpty()) {
+            // Only reached on failure; the thrown exception rolls back the reservations that did succeed
+            Long productId = rejected.get(0);
+            throw insufficientStock(products.get(productId), quantities.get(productId));
+        }
+    }
+
+    @Transactional
+    public void releaseReservedStock(Long saleId, SaleRequestDto saleRequest) {
+        SortedMap<Long, Integer> quantities = quantitiesByProduct(saleRequest);
+        SortedMap<Long, Integer> rows = rowQuantities(quantities, hotStockService::release);
+        productRepository.releaseReservedStock(rows);
+        productCatalogCache.evictStock(rows.keySet());
+        inventoryLedger.recordRelease(saleId, quantities);
+    }
+
+    // The units stay reserved until the ledger folds the sale, so no product row is locked here
+    @Transactional
+    public void commitReservedStock(Long saleId, SaleRequestDto saleRequest) {
+        inventoryLedger.recordSale(saleId, quantitiesByProduct(saleRequest));
     }
 
     @Transactional
     public void updateProductStock(Product product, int quantitySold) {
-        int newStock = product.getStock() - quantitySold;
-        int newReservedStock = product.getReservedStock() - quantitySold;
-        product.setStock(newStock);
-        product.setReservedStock(Math.max(newReservedStock, 0));
-        checkLowStock(product);
-        productRepository.save(product);
+        inventoryLedger.recordSale(null, Map.of(product.getId(), quantitySold));
+    }
+
+    @Transactional
+    public StockLevelDto restockProduct(long id, StockMovementDto movement) {
+        if (movement.getQuantity() <= 0) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "Restock quantity must be positive");
+        }
+        inventoryLedger.record(id, InventoryMovement.RESTOCK, movement.getQuantity(), movement.getNote());
+        return new StockLevelDto(id, inventoryLedger.currentStock(id), LocalDateTime.now(), null);
+    }
+
+    @Transactional
+    public StockLevelDto recordStockTake(long id, StockMovementDto movement) {
+        if (movement.getQuantity() < 0) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "Counted stock cannot be negative");
+        }
+        // Locked so two counts of the same product cannot both correct against the same figure
+        productRepository.findByIdForUpdate(id).orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        int difference = movement.getQuantity() - inventoryLedger.currentStock(id);
+        if (difference != 0) {
+            inventoryLedger.record(id, InventoryMovement.STOCK_TAKE, difference, movement.getNote());
+        }
+        return new StockLevelDto(id, movement.getQuantity(), LocalDateTime.now(), null);
+    }
+
+    public StockLevelDto getStockAt(long id, LocalDateTime at) {
+        return inventoryLedger.stockAt(id, at);
     }
 
     @Transactional
@@ -217,47 +334,70 @@ public class ProductServiceImpl implements ProductService {
         productRepository.saveAll(products);
     }
 
-    private void checkLowStock(Product product) {
-        if (product.getLowStockThreshold() > 0 &&
-                product.getStock() < product.getLowStockThreshold()) {
-            notifyLowStock(product);
-            if (product.getSupplier() != null) {
-                triggerReorder(product);
-            }
+    private SortedMap<Long, Integer> quantitiesByProduct(SaleRequestDto saleRequest) {
+        // Ascending product ids keep the row lock order identical across concurrent sales
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (SaleItemRequestDto itemDto : saleRequest.getItems()) {
+            quantities.merge(itemDto.getProductId(), itemDto.getQuantity(), Integer::sum);
         }
+        return quantities;
     }
 
-    private void notifyLowStock(Product product) {
-        String message = String.format(
-                "Low stock alert: Product %s (ID: %d) is below threshold. Current stock: %d",
-                product.getName(),
-                product.getId(),
-                product.getStock()
+    // Hands hot products to the in-memory action and returns the rest, still in id order
+    private SortedMap<Long, Integer> rowQuantities(SortedMap<Long, Integer> quantities,
+                                                   BiConsumer<Long, Integer> hotAction) {
+        SortedMap<Long, Integer> rows = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (hotStockService.isHot(productId)) {
+                hotAction.accept(productId, quantity);
+            } else {
+                rows.put(productId, quantity);
+            }
+        });
+        return rows;
+    }
+
+    private IllegalArgumentException insufficientStock(Product product, int requested) {
+        int availableStock = product.getStock() - product.getReservedStock();
+        return new IllegalArgumentException(
+                "Insufficient stock for product: " + product.getName() +
+                        ". Available: " + availableStock +
+                        ", Requested: " + requested
         );
-        emailNotificationService.notifyAdmin(message);
     }
 
-    private void triggerReorder(Product product) {
-        int reorderQuantity = calculateReorderQuantity(product);
-
-        if (reorderQuantity > 0) {
-            String orderMessage = String.format(
-                    "Auto-generated reorder for %s: %d units to %s",
-                    product.getName(),
-                    reorderQuantity,
-                    product.getSupplier().getName()
-            );
-            emailNotificationService.notifyPurchasing(orderMessage);
-        }
+    // Cached catalog entries are shared, so callers get copies carrying the current stock
+    private List<ProductDto> withCurrentStock(List<ProductDto> products) {
+        Map<Long, ProductCatalogCache.StockLevel> levels = productCatalogCache.getStock(
+                products.stream().map(ProductDto::getId).toList(),
+                this::loadStockLevels);
+        return products.stream()
+                .map(product -> withStock(product, levels.get(product.getId())))
+                .collect(Collectors.toList());
     }
 
-    private int calculateReorderQuantity(Product product) {
-        int targetStock = product.getLowStockThreshold() * 2;
-        int suggestedOrder = targetStock - product.getStock();
-        if (product.getLowStockMinimumOrder() > 0) {
-            return Math.max(suggestedOrder, product.getLowStockMinimumOrder());
-        }
-        return suggestedOrder;
+    private Map<Long, ProductCatalogCache.StockLevel> loadStockLevels(Set<Long> ids) {
+        return productRepository.findStockCounts(ids).stream()
+                .collect(Collectors.toMap(ProductStockCount::getId,
+                        count -> new ProductCatalogCache.StockLevel(count.getStock(), count.getReservedStock())));
+    }
+
+    private ProductDto withStock(ProductDto cached, ProductCatalogCache.StockLevel level) {
+        ProductDto dto = new ProductDto();
+        dto.setId(cached.getId());
+        dto.setName(cached.getName());
+        dto.setPrice(cached.getPrice());
+        dto.setStock(level != null ? level.stock() : cached.getStock());
+        dto.setStatus(cached.getStatus());
+        dto.setDescription(cached.getDescription());
+        dto.setReservedStock(level != null ? level.reservedStock() : cached.getReservedStock());
+        dto.setHotSku(cached.isHotSku());
+        dto.setLowStockThreshold(cached.getLowStockThreshold());
+        dto.setLowStockMinimumOrder(cached.getLowStockMinimumOrder());
+        dto.setImageUrl(cached.getImageUrl());
+        dto.setCategoryName(cached.getCategoryName());
+        dto.setSupplierName(cached.getSupplierName());
+        return dto;
     }
 
     private ProductDto mapToDTO(Product product) {
@@ -269,6 +409,7 @@ public class ProductServiceImpl implements ProductService {
         dto.setStatus(product.getStatus());
         dto.setDescription(product.getDescription());
         dto.setReservedStock(product.getReservedStock());
+        dto.setHotSku(product.isHotSku());
         dto.setLowStockThreshold(product.getLowStockThreshold());
         dto.setLowStockMinimumOrder(product.getLowStockMinimumOrder());
         dto.setImageUrl(product.getImageUrl());
@@ -286,6 +427,7 @@ public class ProductServiceImpl implements ProductService {
         product.setStatus(productDto.getStatus());
         product.setDescription(productDto.getDescription());
         product.setReservedStock(productDto.getReservedStock());
+        product.setHotSku(productDto.isHotSku());
         product.setLowStockThreshold(productDto.getLowStockThreshold());
         product.setLowStockMinimumOrder(productDto.getLowStockMinimumOrder());
         product.setImageUrl(productDto.getImageUrl());
@@ -0,0 +1,37 @@
+package com.springboot.pos.service.impl;
+
+import com.springboot.pos.event.PaymentResolvedEvent;
+import com.springboot.pos.service.SaleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Completes sales left PENDING by the asynchronous M-Pesa checkout once the
+ * payment transaction has been resolved and committed.
+ */
+@Component
+public class SaleCompletionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaleCompletionListener.class);
+
+    private final SaleService saleService;
+
+    public SaleCompletionListener(SaleService saleService) {
+        this.saleService = saleService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentResolved(PaymentResolvedEvent event) {
+        if (event.getSaleId() == null) {
+            return;
+        }
+        try {
+            saleService.completePendingSale(event.getSaleId());
+        } catch (Exception e) {
+            logger.error("Failed to complete sale {} for transaction {}: {}",
+                    event.getSaleId(), event.getTransactionId(), e.getMessage(), e);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.springboot.pos.exception.ResourceNotFoundException;
 import com.springboot.pos.model.*;
 import com.springboot.pos.payload.*;
 import com.springboot.pos.repository.*;
+import com.springboot.pos.security.CurrentUser;
+import com.springboot.pos.service.AuditLogWriter;
 import com.springboot.pos.service.SaleItemService;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
@@ -12,7 +14,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,18 +30,18 @@ public class SaleItemServiceImpl implements SaleItemService {
     private final SaleItemRepository saleItemRepository;
     private final ProductRepository productRepository;
     private final ModelMapper mapper;
-    private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
 
     public SaleItemServiceImpl(
             SaleItemRepository saleItemRepository,
             ProductRepository productRepository,
-            AuditLogRepository auditLogRepository,
+            AuditLogWriter auditLogWriter,
             ModelMapper mapper
     ) {
         this.saleItemRepository = saleItemRepository;
         this.productRepository = productRepository;
         this.mapper = mapper;
-        this.auditLogRepository = auditLogRepository;
+        this.auditLogWriter = auditLogWriter;
     }
 
     @Override
@@ -55,12 +56,15 @@ public class SaleItemServiceImpl implements SaleItemService {
 
     @Override
     public SaleItem prepareSaleItem(SaleItemResponseDto saleItemDto) {
-        SaleItem saleItem = new SaleItem();
-
         // Fetch product from repository to ensure it exists
         Product product = productRepository.findById(saleItemDto.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", saleItemDto.getProductId()));
+        return prepareSaleItem(saleItemDto, product);
+    }
 
+    @Override
+    public SaleItem prepareSaleItem(SaleItemResponseDto saleItemDto, Product product) {
+        SaleItem saleItem = new SaleItem();
         saleItem.setProduct(product);
         saleItem.setQuantity(saleItemDto.getQuantity());
         saleItem.setUnitPrice(saleItemDto.getUnitPrice());
@@ -75,7 +79,10 @@ public class SaleItemServiceImpl implements SaleItemService {
         log.setEntityType("SaleItem");
         log.setEntityId(saleItem.getId());
         log.setAction("CREATE");
-        log.setUser(SecurityContextHolder.getContext().getAuthentication().getName());
+        // Items of a sale may be logged from a callback thread, long after the request
+        log.setUser(saleItem.getSale() != null && saleItem.getSale().getCashierUsername() != null
+                ? saleItem.getSale().getCashierUsername()
+                : CurrentUser.username());
         log.setTimestamp(LocalDateTime.now());
         log.setDetails(String.format(
                 "Created sale item for product %s (ID: %d) with quantity %d",
@@ -83,8 +90,8 @@ public class SaleItemServiceImpl implements SaleItemService {
                 saleItem.getProduct().getId(),
                 saleItem.getQuantity()
         ));
-        auditLogRepository.save(log);
-        logger.info("Logged creation of sale item ID: {}", saleItem.getId());
+        auditLogWriter.write(log);
+        logger.debug("Queued audit entry for sale item ID: {}", saleItem.getId());
     }
 
     @Override
@@ -5,18 +5,27 @@ import com.springboot.pos.exception.SaleProcessingException;
 import com.springboot.pos.model.*;
 import com.springboot.pos.payload.*;
 import com.springboot.pos.repository.*;
+import com.springboot.pos.security.CurrentUser;
+import com.springboot.pos.service.AuditLogWriter;
 import com.springboot.pos.service.SaleItemService;
+import com.springboot.pos.service.SaleProductContext;
+import com.springboot.pos.service.exchange.ExchangeRateService;
 import com.springboot.pos.service.SaleService;
+import com.springboot.pos.service.SalesRollupService;
+import com.springboot.pos.service.StockReservationService;
 import com.springboot.pos.service.MpesaPaymentService;
+import com.springboot.pos.utils.KeysetCursor;
 import jakarta.transaction.Transactional;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -37,9 +46,15 @@ public class SaleServiceImpl implements SaleService {
     private final ProductServiceImpl productService;
     private final SaleItemService saleItemService;
     private final ModelMapper mapper;
-    private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
     private final MpesaPaymentService mpesaPaymentService;
     private final TransactionRepository transactionRepository;
+    private final ExchangeRateService exchangeRateService;
+    private final SalesRollupService salesRollupService;
+    private final StockReservationService stockReservationService;
+
+    @Value("${mpesa.checkout.async:true}")
+    private boolean asyncMpesaCheckout;
 
     public SaleServiceImpl(
             SaleRepository saleRepository,
@@ -48,9 +63,12 @@ public class SaleServiceImpl implements SaleService {
             ProductServiceImpl productService,
             SaleItemService saleItemService,
             ModelMapper mapper,
-            AuditLogRepository auditLogRepository,
+            AuditLogWriter auditLogWriter,
             MpesaPaymentService mpesaPaymentService,
-            TransactionRepository transactionRepository
+            TransactionRepository transactionRepository,
+            ExchangeRateService exchangeRateService,
+            SalesRollupService salesRollupService,
+            StockReservationService stockReservationService
     ) {
         this.saleRepository = saleRepository;
         this.userRepository = userRepository;
@@ -58,9 +76,12 @@ public class SaleServiceImpl implements SaleService {
         this.productService = productService;
         this.saleItemService = saleItemService;
         this.mapper = mapper;
-        this.auditLogRepository = auditLogRepository;
+        this.auditLogWriter = auditLogWriter;
         this.mpesaPaymentService = mpesaPaymentService;
         this.transactionRepository = transactionRepository;
+        this.exchangeRateService = exchangeRateService;
+        this.salesRollupService = salesRollupService;
+        this.stockReservationService = stockReservationService;
     }
 
     @Override
@@ -75,21 +96,29 @@ public class SaleServiceImpl implements SaleService {
         Sale sale = null;
 
         try {
-            // 1. Reserve stock
-            productService.reserveStockForSale(saleRequest);
+            // 1. Load every product of the sale once and reserve stock
+            SaleProductContext products = productService.loadProductsForSale(saleRequest);
+            productService.reserveStockForSale(saleRequest, products);
 
             // 2. Create and persist Sale
-            sale = createAndPersistSale(saleRequest);
+            sale = createAndPersistSale(saleRequest, products);
+            stockReservationService.hold(sale);
 
             // 3. Process payment if M-PESA
             if ("M-PESA".equals(saleRequest.getPaymentMethod())) {
+                if (asyncMpesaCheckout) {
+                    // Leave the sale PENDING; completion runs once the transaction is resolved
+                    transaction = initiateMpesaPayment(saleRequest, sale);
+                    sale.setTransaction(transaction);
+                    return mapToSaleResponseDto(saleRepository.save(sale));
+                }
                 transaction = processMpesaPayment(saleRequest, sale);
             }
 
             //? we could add usage of other payment methods here.
 
             // 4. Finalize sale
-            return finalizeSaleProcessing(saleRequest, sale, transaction);
+            return finalizeSaleProcessing(sale, currencyOf(saleRequest), transaction);
 
         } catch (Exception e) {
             handleProcessingFailure(saleRequest, transaction, e);
@@ -97,10 +126,57 @@ public class SaleServiceImpl implements SaleService {
         }
     }
 
-    private Sale createAndPersistSale(SaleRequestDto saleRequest) {
+    @Override
+    @Transactional(value = Transactional.TxType.REQUIRES_NEW, rollbackOn = Exception.class)
+    public void completePendingSale(long saleId) {
+        // Locked so an expiring stock hold cannot release this sale while it completes
+        Sale sale = saleRepository.findByIdForUpdate(saleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Sale", "id", saleId));
+
+        if (!"PENDING".equals(sale.getStatus())) {
+            logger.debug("Sale {} already resolved with status {}", saleId, sale.getStatus());
+            return;
+        }
+
+        Transaction transaction = sale.getTransaction();
+        if (transaction == null || "PENDING".equals(transaction.getStatus())) {
+            logger.debug("Payment for sale {} is still pending", saleId);
+            return;
+        }
+
+        if ("SUCCESS".equals(transaction.getStatus())) {
+            finalizeSaleProcessing(sale, transaction.getCurrency(), transaction);
+            logger.info("Completed pending sale {} after M-Pesa confirmation", saleId);
+        } else {
+            productService.releaseReservedStock(saleId, toSaleRequest(sale));
+            stockReservationService.clear(saleId);
+            refundLoyaltyPoints(sale);
+            sale.setStatus("FAILED");
+            saleRepository.save(sale);
+            logger.warn("Pending sale {} failed: {}", saleId, transaction.getResultDesc());
+        }
+    }
+
+    @Override
+    public SaleStatusDto getSaleStatus(long id) {
+        Sale sale = saleRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Sale", "id", id));
+        Transaction transaction = sale.getTransaction();
+        return new SaleStatusDto(
+                sale.getId(),
+                sale.getStatus(),
+                transaction != null ? transaction.getStatus() : null,
+                transaction != null ? transaction.getCheckoutRequestId() : null,
+                transaction != null ? transaction.getResultDesc() : null
+        );
+    }
+
+    private Sale createAndPersistSale(SaleRequestDto saleRequest, SaleProductContext products) {
         Sale sale = new Sale();
         sale.setSaleDate(LocalDateTime.now());
         sale.setPaymentMethod(saleRequest.getPaymentMethod());
+        sale.setStatus("PENDING");
+        sale.setCashierUsername(CurrentUser.username());
 
         // Set user if provided
         if (saleRequest.getUserId() != null) {
@@ -119,13 +195,13 @@ public class SaleServiceImpl implements SaleService {
 
         // Process sale items
         String currency = Optional.ofNullable(saleRequest.getCurrency()).orElse("KES");
-        List<SaleItem> saleItems = processSaleItems(saleRequest, sale, currency);
+        List<SaleItem> saleItems = processSaleItems(saleRequest, sale, currency, products);
         sale.setSaleItems(saleItems);
 
         // Calculate pricing
         BigDecimal subtotalAmount = calculateSubtotalAmount(saleItems);
         BigDecimal discountAmount = calculateDiscount(saleRequest, subtotalAmount);
-        BigDecimal loyaltyDiscount = calculateLoyaltyDiscount(saleRequest, customer, currency);
+        BigDecimal loyaltyDiscount = calculateLoyaltyDiscount(saleRequest, sale, customer, currency);
         BigDecimal taxAmount = calculateTax(saleRequest, subtotalAmount.subtract(discountAmount).subtract(loyaltyDiscount));
 
         // Set final amounts
@@ -136,11 +212,11 @@ public class SaleServiceImpl implements SaleService {
         return saleRepository.save(sale);
     }
 
-    private List<SaleItem> processSaleItems(SaleRequestDto saleRequest, Sale sale, String currency) {
+    private List<SaleItem> processSaleItems(SaleRequestDto saleRequest, Sale sale, String currency,
+                                            SaleProductContext products) {
         return saleRequest.getItems().stream()
                 .map(itemDto -> {
-                    ProductDto productDto = productService.getProductById(itemDto.getProductId());
-                    Product product = productService.mapToEntity(productDto);
+                    Product product = products.get(itemDto.getProductId());
 
                     BigDecimal unitPrice = convertCurrency(product.getPrice(), "KES", currency);
                     BigDecimal itemTotal = calculateItemTotal(itemDto.getQuantity(), unitPrice);
@@ -153,7 +229,8 @@ public class SaleServiceImpl implements SaleService {
                                     itemDto.getQuantity(),
                                     unitPrice,
                                     itemTotal
-                            )
+                            ),
+                            product
                     );
                     saleItem.setSale(sale);
                     return saleItem;
@@ -161,23 +238,27 @@ public class SaleServiceImpl implements SaleService {
                 .collect(Collectors.toList());
     }
 
-    private Transaction processMpesaPayment(SaleRequestDto saleRequest, Sale sale) throws Exception {
+    private Transaction initiateMpesaPayment(SaleRequestDto saleRequest, Sale sale) throws Exception {
         Customer customer = sale.getCustomer();
         String phoneNumber = validateAndFormatPhoneNumber(
                 saleRequest.getPhoneNumber(),
                 customer
         );
-        String currency = Optional.ofNullable(saleRequest.getCurrency()).orElse("KES");
 
         Transaction transaction = mpesaPaymentService.initiatePayment(
                 sale.getTotalAmount(),
                 phoneNumber,
-                currency,
+                currencyOf(saleRequest),
                 "POS Sale Transaction - Sale ID: " + sale.getId(),
                 sale
         );
 
         logger.info("Payment initiated with CheckoutRequestID: {}", transaction.getCheckoutRequestId());
+        return transaction;
+    }
+
+    private Transaction processMpesaPayment(SaleRequestDto saleRequest, Sale sale) throws Exception {
+        Transaction transaction = initiateMpesaPayment(saleRequest, sale);
 
         if (!mpesaPaymentService.confirmPayment(transaction, 180)) {
             throw new SaleProcessingException("M-Pesa payment failed: " + transaction.getResultDesc());
@@ -186,35 +267,41 @@ public class SaleServiceImpl implements SaleService {
         return transaction;
     }
 
-    private SaleResponseDto finalizeSaleProcessing(SaleRequestDto saleRequest, Sale sale, Transaction transaction) {
+    private SaleResponseDto finalizeSaleProcessing(Sale sale, String currency, Transaction transaction) {
+        // Commit the reserved stock
+        productService.commitReservedStock(sale.getId(), toSaleRequest(sale));
+        stockReservationService.clear(sale.getId());
+
         // Update customer loyalty points
         if (sale.getCustomer() != null) {
             updateCustomerLoyaltyPoints(
                     sale.getCustomer(),
                     BigDecimal.valueOf(sale.getTotalAmount()),
-                    Optional.ofNullable(saleRequest.getCurrency()).orElse("KES"),
-                    saleRequest.getUseLoyaltyPoints()
+                    currency
             );
         }
 
         // Update transaction reference if exists
         if (transaction != null) {
             sale.setTransaction(transaction);
-            sale = saleRepository.save(sale);
         }
+        sale.setStatus("COMPLETED");
+        // Flushed so sale_date carries its completion time before the rollup reads it
+        sale = saleRepository.saveAndFlush(sale);
+
+        // Roll the sale into its day's reporting totals
+        salesRollupService.recordSale(sale);
 
         // Log sale items and audit
         logSaleItems(sale);
-        logAudit(sale,
-                Optional.ofNullable(saleRequest.getCurrency()).orElse("KES"),
-                transaction);
+        logAudit(sale, currency, transaction);
 
         return mapToSaleResponseDto(sale);
     }
 
     private void handleProcessingFailure(SaleRequestDto saleRequest, Transaction transaction, Exception e) {
         logger.error("Sale processing failed: {}", e.getMessage(), e);
-        productService.releaseReservedStock(saleRequest);
+        productService.releaseReservedStock(null, saleRequest);
 
         if (transaction != null) {
             transaction.setStatus("FAILED");
@@ -259,6 +346,14 @@ public class SaleServiceImpl implements SaleService {
         );
     }
 
+    @Override
+    public CursorResponse<SaleResponseDto> scrollSales(String after, int limit, String sortBy, String sortDir) {
+        Sort sort = KeysetCursor.sort(Sale.class, sortBy, sortDir);
+        Window<Sale> sales = saleRepository.findAllBy(
+                KeysetCursor.decode(after, Sale.class, sort), sort, KeysetCursor.limit(limit));
+        return KeysetCursor.toResponse(sales, limit, this::mapToSaleResponseDto);
+    }
+
     @Override
     public SaleResponseDto getSaleById(long id) {
         Sale sale = saleRepository.findById(id)
@@ -279,73 +374,49 @@ public class SaleServiceImpl implements SaleService {
             // Adjust dates to cover full days
             LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
             LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
-
-            // Fetch sales with date range and search
-            Page<Sale> salesPage;
-            if (startDateTime != null && endDateTime != null) {
-                salesPage = saleRepository.findBySaleDateBetweenAndCustomerNameContainingIgnoreCase(
-                        startDateTime, endDateTime, search, pageable);
-            } else if (startDateTime != null) {
-                salesPage = saleRepository.findBySaleDateAfterAndCustomerNameContainingIgnoreCase(
-                        startDateTime, search, pageable);
-            } else if (endDateTime != null) {
-                salesPage = saleRepository.findBySaleDateBeforeAndCustomerNameContainingIgnoreCase(
-                        endDateTime, search, pageable);
+            String customerSearch = search != null ? search : "";
+
+            // Aggregates cover the whole filtered range, not just the requested page
+            BigDecimal totalSales;
+            long totalItemsSold;
+            long saleCount;
+            Map<String, BigDecimal> salesByDate;
+            Map<String, BigDecimal> salesByPayment;
+            Map<String, BigDecimal> salesByCustomer;
+            if (customerSearch.isEmpty()) {
+                // Closed days come from the rollup, only today is scanned from raw sales
+                SalesRollupService.Summary summary = salesRollupService.summarize(startDate, endDate);
+                totalSales = summary.getTotalSales();
+                totalItemsSold = summary.getItemsSold();
+                saleCount = summary.getSaleCount();
+                salesByDate = summary.getSalesByDate();
+                salesByPayment = summary.getSalesByPaymentMethod();
+                salesByCustomer = summary.getSalesByCustomer();
             } else {
-                salesPage = search.isEmpty()
-                        ? saleRepository.findAll(pageable)
-                        : saleRepository.findByCustomerNameContainingIgnoreCase(search, pageable);
+                // The rollup has no customer dimension, so searches aggregate the raw rows
+                SalesTotals totals = saleRepository.sumReportTotals(startDateTime, endDateTime, customerSearch);
+                Long itemsSold = saleRepository.sumReportItemsSold(startDateTime, endDateTime, customerSearch);
+                totalSales = totals.getTotalAmount() != null
+                        ? BigDecimal.valueOf(totals.getTotalAmount())
+                        : BigDecimal.ZERO;
+                totalItemsSold = itemsSold != null ? itemsSold : 0L;
+                saleCount = totals.getSaleCount();
+                salesByDate = toTotalsMap(
+                        saleRepository.sumReportByDate(startDateTime, endDateTime, customerSearch));
+                salesByPayment = toTotalsMap(
+                        saleRepository.sumReportByPaymentMethod(startDateTime, endDateTime, customerSearch));
+                salesByCustomer = toTotalsMap(
+                        saleRepository.sumReportByCustomer(startDateTime, endDateTime, customerSearch));
             }
-
-            // Calculate aggregates
-            List<Sale> sales = salesPage.getContent();
-            BigDecimal totalSales = sales.stream()
-                    .map(sale -> BigDecimal.valueOf(sale.getTotalAmount()))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            long totalItemsSold = sales.stream()
-                    .flatMap(sale -> sale.getSaleItems().stream())
-                    .mapToLong(SaleItem::getQuantity)
-                    .sum();
-            BigDecimal averageSale = sales.isEmpty()
+            BigDecimal averageSale = saleCount == 0
                     ? BigDecimal.ZERO
-                    : totalSales.divide(BigDecimal.valueOf(sales.size()), 2, RoundingMode.HALF_UP);
-
-            // Group by date
-            Map<String, BigDecimal> salesByDate = sales.stream()
-                    .collect(Collectors.groupingBy(
-                            sale -> sale.getSaleDate().toLocalDate().toString(),
-                            Collectors.reducing(
-                                    BigDecimal.ZERO,
-                                    sale -> BigDecimal.valueOf(sale.getTotalAmount()),
-                                    BigDecimal::add
-                            )
-                    ));
-
-            // Group by payment method
-            Map<String, BigDecimal> salesByPayment = sales.stream()
-                    .collect(Collectors.groupingBy(
-                            Sale::getPaymentMethod,
-                            Collectors.reducing(
-                                    BigDecimal.ZERO,
-                                    sale -> BigDecimal.valueOf(sale.getTotalAmount()),
-                                    BigDecimal::add
-                            )
-                    ));
-
-            // Group by customer
-            Map<String, BigDecimal> salesByCustomer = sales.stream()
-                    .filter(sale -> sale.getCustomer() != null)
-                    .collect(Collectors.groupingBy(
-                            sale -> sale.getCustomer().getName(),
-                            Collectors.reducing(
-                                    BigDecimal.ZERO,
-                                    sale -> BigDecimal.valueOf(sale.getTotalAmount()),
-                                    BigDecimal::add
-                            )
-                    ));
-
-            // Map sales to DTOs
-            List<SaleResponseDto> saleDtos = sales.stream()
+                    : totalSales.divide(BigDecimal.valueOf(saleCount), 2, RoundingMode.HALF_UP);
+
+            // The listed page holds the same completed sales the totals count, so their count is the total
+            Page<Sale> salesPage = new PageImpl<>(
+                    saleRepository.findReportPage(startDateTime, endDateTime, customerSearch, pageable),
+                    pageable, saleCount);
+            List<SaleResponseDto> saleDtos = salesPage.getContent().stream()
                     .map(this::mapToSaleResponseDto)
                     .collect(Collectors.toList());
 
@@ -367,6 +438,16 @@ public class SaleServiceImpl implements SaleService {
             return report;
         }
 
+    private Map<String, BigDecimal> toTotalsMap(List<SalesGroupTotal> groups) {
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        for (SalesGroupTotal group : groups) {
+            String label = group.getLabel() != null ? group.getLabel().toString() : "Unknown";
+            BigDecimal total = group.getTotal() != null ? BigDecimal.valueOf(group.getTotal()) : BigDecimal.ZERO;
+            totals.merge(label, total, BigDecimal::add);
+        }
+        return totals;
+    }
+
     private BigDecimal calculateDiscount(SaleRequestDto saleRequest, BigDecimal subtotal) {
         if (saleRequest.getDiscountPercentage() == null || saleRequest.getDiscountPercentage() <= 0) {
             return BigDecimal.ZERO;
@@ -376,7 +457,8 @@ public class SaleServiceImpl implements SaleService {
         ).setScale(2, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal calculateLoyaltyDiscount(SaleRequestDto saleRequest, Customer customer, String currency) {
+    private BigDecimal calculateLoyaltyDiscount(SaleRequestDto saleRequest, Sale sale, Customer customer,
+                                                String currency) {
         if (customer == null || saleRequest.getUseLoyaltyPoints() == null ||
                 saleRequest.getUseLoyaltyPoints() <= 0) {
             return BigDecimal.ZERO;
@@ -384,6 +466,8 @@ public class SaleServiceImpl implements SaleService {
 
         int pointsToUse = Math.min(saleRequest.getUseLoyaltyPoints(), customer.getLoyaltyPoints());
         customer.setLoyaltyPoints(customer.getLoyaltyPoints() - pointsToUse);
+        // Kept on the sale so the points can be given back if it never completes
+        sale.setLoyaltyPointsUsed(pointsToUse);
         return convertCurrency(BigDecimal.valueOf(pointsToUse), "KES", currency);
     }
 
@@ -412,8 +496,16 @@ public class SaleServiceImpl implements SaleService {
         return phoneNumber;
     }
 
-    private void updateCustomerLoyaltyPoints(Customer customer, BigDecimal subtotalAmount,
-                                             String currency, Integer usedPoints) {
+    private void refundLoyaltyPoints(Sale sale) {
+        Customer customer = sale.getCustomer();
+        if (customer == null || sale.getLoyaltyPointsUsed() <= 0) {
+            return;
+        }
+        customer.setLoyaltyPoints(customer.getLoyaltyPoints() + sale.getLoyaltyPointsUsed());
+        customerRepository.save(customer);
+    }
+
+    private void updateCustomerLoyaltyPoints(Customer customer, BigDecimal subtotalAmount, String currency) {
         BigDecimal subtotalInKES = convertCurrency(subtotalAmount, currency, "KES");
         int pointsEarned = subtotalInKES.divide(BigDecimal.valueOf(100), RoundingMode.FLOOR).intValue();
         customer.setLoyaltyPoints(customer.getLoyaltyPoints() + pointsEarned);
@@ -431,7 +523,8 @@ public class SaleServiceImpl implements SaleService {
         log.setEntityType("Sale");
         log.setEntityId(sale.getId());
         log.setAction("CREATE");
-        log.setUser(SecurityContextHolder.getContext().getAuthentication().getName());
+        // Sales from before the cashier was stored are completed under the system user
+        log.setUser(sale.getCashierUsername() != null ? sale.getCashierUsername() : CurrentUser.username());
         log.setTimestamp(LocalDateTime.now());
 
         String details = "Created sale with total amount: " + sale.getTotalAmount() + " " + currency;
@@ -440,7 +533,7 @@ public class SaleServiceImpl implements SaleService {
         }
 
         log.setDetails(details);
-        auditLogRepository.save(log);
+        auditLogWriter.write(log);
     }
 
     private SaleResponseDto mapToSaleResponseDto(Sale sale) {
@@ -454,6 +547,7 @@ public class SaleServiceImpl implements SaleService {
         saleResponseDto.setUser(sale.getUser() != null ? mapper.map(sale.getUser(), UserDto.class) : null);
         saleResponseDto.setCustomer(sale.getCustomer() != null ? mapper.map(sale.getCustomer(), CustomerDto.class) : null);
         saleResponseDto.setPaymentMethod(sale.getPaymentMethod());
+        saleResponseDto.setStatus(sale.getStatus());
 
         List<SaleItemResponseDto> saleItems = sale.getSaleItems()
                 .stream()
@@ -474,22 +568,28 @@ public class SaleServiceImpl implements SaleService {
         return saleItemDto;
     }
 
+    private SaleRequestDto toSaleRequest(Sale sale) {
+        SaleRequestDto saleRequest = new SaleRequestDto();
+        saleRequest.setItems(sale.getSaleItems().stream()
+                .map(saleItem -> {
+                    SaleItemRequestDto itemDto = new SaleItemRequestDto();
+                    itemDto.setProductId(saleItem.getProduct().getId());
+                    itemDto.setQuantity(saleItem.getQuantity());
+                    return itemDto;
+                })
+                .collect(Collectors.toList()));
+        return saleRequest;
+    }
+
+    private String currencyOf(SaleRequestDto saleRequest) {
+        return Optional.ofNullable(saleRequest.getCurrency()).orElse("KES");
+    }
+
     private BigDecimal calculateItemTotal(int quantity, BigDecimal unitPrice) {
         return unitPrice.multiply(BigDecimal.valueOf(quantity));
     }
 
     private BigDecimal convertCurrency(BigDecimal amount, String fromCurrency, String toCurrency) {
-        if (fromCurrency.equals(toCurrency)) return amount;
-
-        Map<String, BigDecimal> exchangeRates = new HashMap<>();
-        exchangeRates.put("KES-USD", BigDecimal.valueOf(0.0078));
-        exchangeRates.put("USD-KES", BigDecimal.valueOf(128.50));
-
-        String key = fromCurrency + "-" + toCurrency;
-        if (exchangeRates.containsKey(key)) {
-            return amount.multiply(exchangeRates.get(key)).setScale(2, RoundingMode.HALF_UP);
-        }
-
-        throw new IllegalArgumentException("Unsupported currency conversion: " + fromCurrency + " to " + toCurrency);
+        return exchangeRateService.convert(amount, fromCurrency, toCurrency);
     }
 }
\ No newline at end of file
@@ -6,12 +6,14 @@ import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.SupplierDto;
 import com.springboot.pos.repository.SupplierRepository;
 import com.springboot.pos.service.SupplierService;
+import com.springboot.pos.service.cache.CacheInvalidationBus;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,17 +21,22 @@ import java.util.stream.Collectors;
 public class SupplierServiceImpl implements SupplierService {
     private SupplierRepository supplierRepository;
     private ModelMapper mapper;
+    private CacheInvalidationBus cacheInvalidationBus;
 
-    public SupplierServiceImpl(SupplierRepository supplierRepository, ModelMapper mapper) {
+    public SupplierServiceImpl(SupplierRepository supplierRepository, ModelMapper mapper,
+                               CacheInvalidationBus cacheInvalidationBus) {
         this.supplierRepository = supplierRepository;
         this.mapper = mapper;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
 
     @Override
+    @Transactional
     public SupplierDto createSupplier(SupplierDto supplierDto) {
         Supplier supplier = mapToEntity(supplierDto);
         Supplier newSupplier = supplierRepository.save(supplier);
+        cacheInvalidationBus.publish(CacheInvalidationBus.SUPPLIER, newSupplier.getId());
 
         //convert entity to DTO
         SupplierDto supplierResponse = mapToDTO(newSupplier);
@@ -62,9 +69,11 @@ public class SupplierServiceImpl implements SupplierService {
 
 
     @Override
+    @Transactional
     public void deleteSupplierById(long id) {
         Supplier supplier = supplierRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Supplier", "id", id));
         supplierRepository.delete(supplier);
+        cacheInvalidationBus.publish(CacheInvalidationBus.SUPPLIER, id);
     }
 
     private SupplierDto mapToDTO(Supplier supplier) {
@@ -4,10 +4,12 @@ import com.springboot.pos.model.Supplier;
 import com.springboot.pos.payload.SupplierDto;
 import lombok.Builder;
 import com.springboot.pos.model.Transaction;
+import com.springboot.pos.payload.CursorResponse;
 import com.springboot.pos.payload.PagedResponse;
 import com.springboot.pos.payload.TransactionDto;
 import com.springboot.pos.repository.TransactionRepository;
 import com.springboot.pos.service.TransactionService;
+import com.springboot.pos.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -15,6 +17,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -58,6 +61,14 @@ public class TransactionServiceImpl implements TransactionService {
         return productresponse;
     }
 
+    @Override
+    public CursorResponse<TransactionDto> scrollTransactions(String after, int limit, String sortBy, String sortDir) {
+        Sort sort = KeysetCursor.sort(Transaction.class, sortBy, sortDir);
+        Window<Transaction> transactions = transactionRepository.findAllBy(
+                KeysetCursor.decode(after, Transaction.class, sort), sort, KeysetCursor.limit(limit));
+        return KeysetCursor.toResponse(transactions, limit, this::mapToDTO);
+    }
+
     private TransactionDto mapToDTO(Transaction transaction) {
         TransactionDto transactionDto = mapper.map(transaction, TransactionDto.class);
         return transactionDto;
@@ -0,0 +1,43 @@
+package com.springboot.pos.service.job;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Background job that must run on exactly one node of the cluster at a time.
+ * Every {@code ClusterJob} bean is picked up by {@link ClusterJobRunner}.
+ */
+public interface ClusterJob {
+
+    String getName();
+
+    /**
+     * Delay between the end of one run and the start of the next.
+     */
+    long getIntervalMs();
+
+    /**
+     * Runs the job once.
+     *
+     * @return the number of rows processed, recorded with the run
+     */
+    int run() throws Exception;
+
+    static ClusterJob of(String name, long intervalMs, Callable<Integer> task) {
+        return new ClusterJob() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public long getIntervalMs() {
+                return intervalMs;
+            }
+
+            @Override
+            public int run() throws Exception {
+                return task.call();
+            }
+        };
+    }
+}
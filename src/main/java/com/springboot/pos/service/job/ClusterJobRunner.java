@@ -0,0 +1,194 @@
+package com.springboot.pos.service.job;
+
+import com.springboot.pos.model.JobLease;
+import com.springboot.pos.repository.JobLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every {@link ClusterJob} on a single node of the cluster. Each job has
+ * a row in {@code job_leases}; a heartbeat takes or renews the lease of every
+ * job with one conditional update per job, which only succeeds when this node
+ * already holds the lease or the holder let it lapse. A job's schedule fires
+ * on every node, but only the lease holder runs it. When a node dies its
+ * leases expire after {@code jobs.lease.ttl-ms} and the next heartbeat on
+ * another node takes them over; a node shutting down releases them at once.
+ */
+@Service
+public class ClusterJobRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterJobRunner.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String REGISTER_SQL =
+            "INSERT IGNORE INTO job_leases (job_name, lease_until, run_count) VALUES (?, CURRENT_TIMESTAMP(3), 0)";
+
+    private static final String ACQUIRE_SQL =
+            "UPDATE job_leases SET owner_node = ?, lease_until = CURRENT_TIMESTAMP(3) + INTERVAL ? MICROSECOND " +
+            "WHERE job_name = ? AND (owner_node = ? OR owner_node IS NULL OR lease_until < CURRENT_TIMESTAMP(3))";
+
+    private static final String RECORD_RUN_SQL =
+            "UPDATE job_leases SET last_started_at = ?, last_finished_at = CURRENT_TIMESTAMP(3), " +
+            "last_duration_ms = ?, last_rows = ?, last_status = ?, last_error = ?, last_node = ?, " +
+            "run_count = run_count + 1 WHERE job_name = ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE job_leases SET owner_node = NULL, lease_until = CURRENT_TIMESTAMP(3) WHERE owner_node = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final List<ClusterJob> jobs;
+    private final String nodeId;
+    private final long leaseTtlMs;
+    private final long heartbeatMs;
+    private final ScheduledExecutorService scheduler;
+    // Kept apart from the job threads so long runs cannot delay lease renewal
+    private final ScheduledExecutorService heartbeatScheduler;
+
+    // Job name -> local time until which this node may treat the lease as its own
+    private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+
+    public ClusterJobRunner(JdbcTemplate jdbcTemplate,
+                            JobLeaseRepository jobLeaseRepository,
+                            List<ClusterJob> jobs,
+                            @Value("${jobs.node-id:}") String nodeId,
+                            @Value("${jobs.lease.ttl-ms:10000}") long leaseTtlMs,
+                            @Value("${jobs.lease.heartbeat-ms:3000}") long heartbeatMs,
+                            @Value("${jobs.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.jobs = jobs;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.leaseTtlMs = leaseTtlMs;
+        this.heartbeatMs = heartbeatMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "cluster-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ClusterJob job : jobs) {
+            jdbcTemplate.update(REGISTER_SQL, job.getName());
+        }
+        heartbeat();
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        for (ClusterJob job : jobs) {
+            scheduler.scheduleWithFixedDelay(() -> runIfLeader(job), job.getIntervalMs(), job.getIntervalMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.info("Cluster job runner started as node {} with jobs {}", nodeId,
+                jobs.stream().map(ClusterJob::getName).toList());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        heartbeatScheduler.shutdownNow();
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        heldUntil.clear();
+        try {
+            // Lets another node take over without waiting for the leases to lapse
+            jdbcTemplate.update(RELEASE_SQL, nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to release job leases: {}", e.getMessage());
+        }
+    }
+
+    public List<JobLease> getJobStatus() {
+        return jobLeaseRepository.findAll(Sort.by("jobName"));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isLeader(String jobName) {
+        Long until = heldUntil.get(jobName);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    private void heartbeat() {
+        for (ClusterJob job : jobs) {
+            // Counted from before the update, so the local view never outlives the lease in MySQL
+            long renewedAt = System.currentTimeMillis();
+            try {
+                int updated = jdbcTemplate.update(ACQUIRE_SQL, nodeId, TimeUnit.MILLISECONDS.toMicros(leaseTtlMs),
+                        job.getName(), nodeId);
+                if (updated == 1) {
+                    if (heldUntil.put(job.getName(), renewedAt + leaseTtlMs) == null) {
+                        logger.info("Node {} took the lease for job {}", nodeId, job.getName());
+                    }
+                } else if (heldUntil.remove(job.getName()) != null) {
+                    logger.warn("Node {} lost the lease for job {}", nodeId, job.getName());
+                }
+            } catch (Exception e) {
+                logger.error("Failed to renew the lease for job {}: {}", job.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void runIfLeader(ClusterJob job) {
+        if (!isLeader(job.getName())) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        int rows = 0;
+        String error = null;
+        try {
+            rows = job.run();
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            logger.error("Job {} failed: {}", job.getName(), error, e);
+        }
+        long durationMs = System.currentTimeMillis() - startedAt;
+        try {
+            jdbcTemplate.update(RECORD_RUN_SQL, new Timestamp(startedAt), durationMs, rows,
+                    error == null ? "SUCCESS" : "FAILED",
+                    error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH),
+                    nodeId, job.getName());
+        } catch (Exception e) {
+            logger.warn("Failed to record run of job {}: {}", job.getName(), e.getMessage());
+        }
+        if (!isLeader(job.getName())) {
+            logger.warn("Job {} finished after node {} lost its lease", job.getName(), nodeId);
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
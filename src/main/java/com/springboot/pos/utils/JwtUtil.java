@@ -3,17 +3,22 @@ package com.springboot.pos.utils;
 import io.jsonwebtoken.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERIFIED_CLAIM = "verified";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -22,13 +27,31 @@ public class JwtUtil {
 
     public String generateToken(Authentication authentication) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        return createToken(new HashMap<>(), userDetails.getUsername());
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        // Sign-in only succeeds for verified users, see CustomUserDetailsService
+        claims.put(VERIFIED_CLAIM, true);
+        return createToken(claims, userDetails.getUsername());
+    }
+
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
+    /**
+     * Verifies the signature and expiry and returns the claims, in one parse.
+     */
+    public Claims parseToken(String token) throws JwtException {
+        return extractAllClaims(token);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString()) // jti, the key for revocation
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(SignatureAlgorithm.HS512, secret.getBytes()) // safer
@@ -0,0 +1,121 @@
+package com.springboot.pos.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.payload.CursorResponse;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor carries the sort key and id of
+ * the last row of a page, so the next page is read with
+ * {@code WHERE (sortKey, id) > (:sortKey, :id)} instead of an OFFSET and no
+ * {@code count(*)} is issued.
+ */
+public final class KeysetCursor {
+
+    private static final String ID = "id";
+
+    // ISO dates so cursors do not depend on the API date format
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Sort on {@code sortBy} with the id as tie-breaker, so every row has a
+     * unique position.
+     */
+    public static Sort sort(Class<?> entityType, String sortBy, String sortDir) {
+        propertyType(entityType, sortBy);
+        Sort.Direction direction = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name())
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, sortBy);
+        return ID.equals(sortBy) ? sort : sort.and(Sort.by(direction, ID));
+    }
+
+    public static Limit limit(int limit) {
+        if (limit < 1 || limit > AppConstants.MAX_CURSOR_LIMIT) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + AppConstants.MAX_CURSOR_LIMIT);
+        }
+        return Limit.of(limit);
+    }
+
+    /**
+     * Decodes an {@code after} cursor for the given sort. A missing cursor
+     * starts at the first row.
+     */
+    public static ScrollPosition decode(String cursor, Class<?> entityType, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> raw;
+        try {
+            raw = CURSOR_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor),
+                    new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (Exception e) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        Set<String> expected = new HashSet<>();
+        sort.forEach(order -> expected.add(order.getProperty()));
+        if (!raw.keySet().equals(expected)) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sort order");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            Object value = raw.get(order.getProperty());
+            keys.put(order.getProperty(), value == null
+                    ? null
+                    : CURSOR_MAPPER.convertValue(value, propertyType(entityType, order.getProperty())));
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static <E, D> CursorResponse<D> toResponse(Window<E> window, int limit, Function<E, D> mapper) {
+        List<D> content = window.stream().map(mapper).toList();
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? encode((KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+        return new CursorResponse<>(content, limit, nextCursor, nextCursor == null);
+    }
+
+    private static String encode(KeysetScrollPosition position) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(CURSOR_MAPPER.writeValueAsString(position.getKeys()).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    private static Class<?> propertyType(Class<?> entityType, String property) {
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(entityType, property);
+        if (descriptor == null || !BeanUtils.isSimpleValueType(descriptor.getPropertyType())) {
+            throw new PosApiException(HttpStatus.BAD_REQUEST, "Cannot sort " + entityType.getSimpleName() + " by " + property);
+        }
+        return descriptor.getPropertyType();
+    }
+}
@@ -0,0 +1,64 @@
+package com.springboot.pos.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Recording is lock-free; percentiles are
+ * reported as the upper bound of the bucket they fall in, which is precise
+ * enough to tell a healthy gateway from a struggling one.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMs = new LongAdder();
+    private final LongAccumulator maxMs = new LongAccumulator(Math::max, 0);
+
+    public void record(long elapsedMs) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && elapsedMs > BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalMs.add(elapsedMs);
+        maxMs.accumulate(elapsedMs);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMeanMs() {
+        long calls = count.sum();
+        return calls == 0 ? 0 : totalMs.sum() / calls;
+    }
+
+    public long getMaxMs() {
+        return maxMs.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100); the
+     * overflow bucket reports the largest latency seen.
+     */
+    public long percentileMs(double percentile) {
+        long calls = count.sum();
+        if (calls == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(calls * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return maxMs.get();
+    }
+}
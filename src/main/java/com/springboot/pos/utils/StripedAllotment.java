@@ -0,0 +1,93 @@
+package com.springboot.pos.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Non-negative pool of units spread over a power-of-two number of cells.
+ * Each thread starts at its own cell and only moves on to the others when
+ * that one runs short, so concurrent takers rarely compete for the same
+ * compare-and-set. Units taken while a larger take comes up short are put
+ * back, so a failed take leaves the total unchanged.
+ */
+public class StripedAllotment {
+
+    private final AtomicIntegerArray cells;
+    private final int mask;
+
+    public StripedAllotment(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.cells = new AtomicIntegerArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Takes exactly {@code quantity} units, or none when fewer are left.
+     */
+    public boolean tryTake(int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int home = homeCell();
+        int remaining = quantity;
+        for (int i = 0; i <= mask && remaining > 0; i++) {
+            remaining -= takeFrom((home + i) & mask, remaining);
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        if (remaining < quantity) {
+            cells.addAndGet(home, quantity - remaining);
+        }
+        return false;
+    }
+
+    public void add(int quantity) {
+        if (quantity > 0) {
+            cells.addAndGet(homeCell(), quantity);
+        }
+    }
+
+    /**
+     * Takes up to {@code max} units and returns how many were taken.
+     */
+    public int drain(int max) {
+        int taken = 0;
+        for (int i = 0; i <= mask && taken < max; i++) {
+            taken += takeFrom(i, max - taken);
+        }
+        return taken;
+    }
+
+    /**
+     * Sum of all cells; only a snapshot while other threads take and add.
+     */
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    private int takeFrom(int index, int wanted) {
+        int current;
+        while ((current = cells.get(index)) > 0) {
+            int grab = Math.min(current, wanted);
+            if (cells.compareAndSet(index, current, current - grab)) {
+                return grab;
+            }
+        }
+        return 0;
+    }
+
+    private int homeCell() {
+        int hash = (int) Thread.currentThread().getId();
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return hash & mask;
+    }
+}
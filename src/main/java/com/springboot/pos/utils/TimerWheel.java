@@ -0,0 +1,82 @@
+package com.springboot.pos.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timer wheel: keys are hashed into one of {@code wheelSize} slots by
+ * their deadline tick, so scheduling and cancelling are O(1) and each tick
+ * only looks at one slot. Deadlines further out than one turn of the wheel
+ * simply stay in their slot until the turn they are due. Not thread-safe on
+ * its own; callers synchronize.
+ */
+public class TimerWheel<K> {
+
+    private final long tickMs;
+    private final List<Set<K>> slots;
+    private final Map<K, Long> deadlineTicks = new HashMap<>();
+    private long currentTick;
+
+    public TimerWheel(int wheelSize, long tickMs, long nowMs) {
+        this.tickMs = tickMs;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new LinkedHashSet<>());
+        }
+        this.currentTick = nowMs / tickMs;
+    }
+
+    /**
+     * Schedules {@code key} to expire at {@code deadlineMs}, replacing any
+     * earlier deadline for it. Past deadlines expire on the next advance.
+     */
+    public void schedule(K key, long deadlineMs) {
+        cancel(key);
+        long tick = Math.max(deadlineMs / tickMs, currentTick + 1);
+        deadlineTicks.put(key, tick);
+        slots.get(slotOf(tick)).add(key);
+    }
+
+    public boolean cancel(K key) {
+        Long tick = deadlineTicks.remove(key);
+        return tick != null && slots.get(slotOf(tick)).remove(key);
+    }
+
+    /**
+     * Moves the wheel to {@code nowMs} and returns every key whose deadline has
+     * passed, removing them from the wheel.
+     */
+    public List<K> advance(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        List<K> expired = new ArrayList<>();
+        // After a long pause every slot is due at most once
+        long ticks = Math.min(targetTick - currentTick, slots.size());
+        for (long i = 0; i < ticks; i++) {
+            Set<K> slot = slots.get(slotOf(targetTick - i));
+            Iterator<K> it = slot.iterator();
+            while (it.hasNext()) {
+                K key = it.next();
+                if (deadlineTicks.get(key) <= targetTick) {
+                    it.remove();
+                    deadlineTicks.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    public int size() {
+        return deadlineTicks.size();
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+}
@@ -0,0 +1,54 @@
+package com.springboot.pos.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void allowsABurstUpToCapacityThenThrottles() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1, 1000);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        // One token a minute, so the next one is about a minute away
+        assertThat(limiter.tryAcquire("alice")).isBetween(59L, 60L);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1000);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+        assertThat(limiter.tryAcquire("bob")).isZero();
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        // 6000 a minute is one token every 10 ms
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 6000, 1000);
+        assertThat(limiter.tryAcquire("alice")).isZero();
+
+        Thread.sleep(50);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+    }
+
+    @Test
+    void sweepDropsOnlyRefilledBuckets() throws InterruptedException {
+        TokenBucketLimiter fast = new TokenBucketLimiter(1, 60_000, 1000);
+        TokenBucketLimiter slow = new TokenBucketLimiter(1, 1, 1000);
+        fast.tryAcquire("alice");
+        slow.tryAcquire("alice");
+
+        Thread.sleep(20);
+        fast.sweep();
+        slow.sweep();
+
+        assertThat(fast.size()).isZero();
+        assertThat(slow.size()).isEqualTo(1);
+    }
+}
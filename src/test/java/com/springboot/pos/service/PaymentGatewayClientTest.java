@@ -0,0 +1,181 @@
+package com.springboot.pos.service;
+
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.service.PaymentGatewayClient.CircuitState;
+import com.springboot.pos.service.PaymentGatewayClient.Endpoint;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the client against a local HTTP server standing in for Daraja, whose
+ * answer status and delay each test sets.
+ */
+class PaymentGatewayClientTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MS = 300;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long delayMs;
+    private volatile CountDownLatch hold;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", this::answer);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (hold != null) {
+            hold.countDown();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void slowAnswerTimesOutAndIsCounted() {
+        PaymentGatewayClient client = client(200, 5);
+        delayMs = 1000;
+
+        assertThatThrownBy(() -> call(client)).isInstanceOf(ResourceAccessException.class);
+
+        assertThat(client.getFailureCount()).isEqualTo(1);
+        assertThat(client.getLatency(Endpoint.STK_PUSH).getCount()).isEqualTo(1);
+        assertThat(client.getLatency(Endpoint.STK_PUSH).getMaxMs()).isBetween(150L, 1000L);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterTrial() throws Exception {
+        PaymentGatewayClient client = client(2000, 5);
+        status = 503;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> call(client)).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(client.getCircuitState()).isEqualTo(CircuitState.OPEN);
+
+        // Fails fast without reaching the server
+        int before = requests.get();
+        assertThatThrownBy(() -> call(client))
+                .isInstanceOf(PosApiException.class)
+                .extracting(e -> ((PosApiException) e).getStatus())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(requests).hasValue(before);
+        assertThat(client.getCircuitRejectionCount()).isEqualTo(1);
+
+        Thread.sleep(OPEN_MS + 50);
+        status = 200;
+        assertThat(call(client)).isEqualTo("{}");
+        assertThat(client.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    }
+
+    @Test
+    void failedTrialReopensTheCircuit() throws Exception {
+        PaymentGatewayClient client = client(2000, 5);
+        status = 504;
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> call(client)).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        Thread.sleep(OPEN_MS + 50);
+        assertThatThrownBy(() -> call(client)).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(client.getCircuitState()).isEqualTo(CircuitState.OPEN);
+        assertThatThrownBy(() -> call(client)).isInstanceOf(PosApiException.class);
+    }
+
+    @Test
+    void businessErrorsDoNotOpenTheCircuit() {
+        PaymentGatewayClient client = client(2000, 5);
+        status = 500;
+        for (int i = 0; i <= FAILURE_THRESHOLD; i++) {
+            assertThatThrownBy(() -> call(client)).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        assertThat(client.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+        assertThat(client.getFailureCount()).isZero();
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        PaymentGatewayClient client = client(5000, 2);
+        hold = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> call(client));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> call(client));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(client.getInFlightCalls()).isEqualTo(2);
+
+        assertThatThrownBy(() -> call(client))
+                .isInstanceOf(PosApiException.class)
+                .extracting(e -> ((PosApiException) e).getStatus())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(client.getBulkheadRejectionCount()).isEqualTo(1);
+
+        hold.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("{}");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("{}");
+        assertThat(client.getInFlightCalls()).isZero();
+    }
+
+    private PaymentGatewayClient client(long readTimeoutMs, int maxConcurrentCalls) {
+        return new PaymentGatewayClient("sandbox", "http://localhost:" + server.getAddress().getPort(),
+                1000, readTimeoutMs, maxConcurrentCalls, 50, FAILURE_THRESHOLD, OPEN_MS);
+    }
+
+    private static String call(PaymentGatewayClient client) {
+        return client.exchange(Endpoint.STK_PUSH, HttpMethod.POST, new HttpEntity<>("{}"), String.class).getBody();
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (hold != null) {
+                hold.await(10, TimeUnit.SECONDS);
+            }
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
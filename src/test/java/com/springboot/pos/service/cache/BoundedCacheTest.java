@@ -0,0 +1,105 @@
+package com.springboot.pos.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    private final BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, 1, TimeUnit.MINUTES);
+
+    @Test
+    void loadsOnceAndServesHits() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(1L, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get(1L, key -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatingTheLoadingKeyDropsTheLoad() {
+        String returned = cache.get(1L, key -> {
+            cache.invalidate(1L);
+            return "stale";
+        });
+
+        assertThat(returned).isEqualTo("stale");
+        assertThat(cache.get(1L, key -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void invalidatingAnotherKeyKeepsTheLoad() {
+        cache.get(1L, key -> {
+            cache.invalidate(2L);
+            return "loaded";
+        });
+
+        assertThat(cache.get(1L, key -> "reloaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void getAllStoresOnlyKeysThatWereNotInvalidated() {
+        Map<Long, String> loaded = cache.getAll(List.of(1L, 2L, 3L), keys -> {
+            cache.invalidate(2L);
+            return keys.stream().collect(Collectors.toMap(key -> key, key -> "old" + key));
+        });
+
+        assertThat(loaded).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(cache.get(1L, key -> "new")).isEqualTo("old1");
+        assertThat(cache.get(2L, key -> "new")).isEqualTo("new");
+        assertThat(cache.get(3L, key -> "new")).isEqualTo("old3");
+    }
+
+    @Test
+    void invalidateIfAndAllDropMatchingLoads() {
+        cache.getAll(List.of(1L, 2L), keys -> {
+            cache.invalidateIf(key -> key == 1L);
+            return Map.of(1L, "old1", 2L, "old2");
+        });
+        assertThat(cache.get(1L, key -> "new1")).isEqualTo("new1");
+        assertThat(cache.get(2L, key -> "new2")).isEqualTo("old2");
+
+        cache.get(3L, key -> {
+            cache.invalidateAll();
+            return "old3";
+        });
+        assertThat(cache.get(3L, key -> "new3")).isEqualTo("new3");
+    }
+
+    @Test
+    void failedLoadDoesNotBlockLaterLoads() {
+        try {
+            cache.get(1L, key -> {
+                throw new IllegalStateException("down");
+            });
+        } catch (IllegalStateException expected) {
+            // the next load must still be stored
+        }
+
+        assertThat(cache.get(1L, key -> "up")).isEqualTo("up");
+        assertThat(cache.get(1L, key -> "again")).isEqualTo("up");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        BoundedCache<Long, String> small = new BoundedCache<>("small", 2, 1, TimeUnit.MINUTES);
+        small.put(1L, "a");
+        small.put(2L, "b");
+        small.get(1L, key -> "reloaded");
+        small.put(3L, "c");
+
+        assertThat(small.getSize()).isEqualTo(2);
+        assertThat(small.getEvictionCount()).isEqualTo(1);
+        assertThat(small.get(2L, key -> "reloaded")).isEqualTo("reloaded");
+    }
+}
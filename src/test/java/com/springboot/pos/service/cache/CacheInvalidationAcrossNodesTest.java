@@ -0,0 +1,106 @@
+package com.springboot.pos.service.cache;
+
+import com.springboot.pos.SpringbootPosRestApiApplication;
+import com.springboot.pos.payload.ProductDto;
+import com.springboot.pos.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one database stand in for two nodes. The
+ * product cache TTL is minutes, so node B only sees node A's rename within
+ * the wait below if the invalidation row evicted its cached entry.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CacheInvalidationAcrossNodesTest {
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void productUpdateOnOneNodeEvictsTheOtherNodesCache() throws Exception {
+        ProductService productsA = nodeA.getBean(ProductService.class);
+        ProductService productsB = nodeB.getBean(ProductService.class);
+
+        long id = productsA.createProduct(product("Sugar 1kg"), null).getId();
+        assertThat(productsB.getProductById(id).getName()).isEqualTo("Sugar 1kg");
+
+        productsA.updateProduct(product("Brown sugar 1kg"), id, null);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String name = productsB.getProductById(id).getName();
+        while (!"Brown sugar 1kg".equals(name) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            name = productsB.getProductById(id).getName();
+        }
+
+        assertThat(name).isEqualTo("Brown sugar 1kg");
+        assertThat(nodeB.getBean(CacheInvalidationBus.class).getAppliedCount()).isPositive();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(SpringbootPosRestApiApplication.class)
+                .properties(
+                        "spring.datasource.url=" + MYSQL.getJdbcUrl(),
+                        "spring.datasource.username=" + MYSQL.getUsername(),
+                        "spring.datasource.password=" + MYSQL.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.mail.host=localhost",
+                        "server.port=0",
+                        "app.base-url=http://localhost",
+                        "app.email.admin=admin@example.com",
+                        "app.email.purchasing=purchasing@example.com",
+                        "jwt.secret=test-secret-test-secret-test-secret-test-secret-test-secret-0123",
+                        "jwt.expirationMs=3600000",
+                        "mpesa.env=sandbox",
+                        "mpesa.consumer.key=test",
+                        "mpesa.consumer.secret=test",
+                        "mpesa.passkey=test",
+                        "mpesa.shortcode=174379",
+                        "mpesa.callback.url=http://localhost/api/mpesa/callback",
+                        "cache.invalidation.node-id=" + nodeId,
+                        "cache.invalidation.poll-ms=100")
+                .run();
+    }
+
+    private static ProductDto product(String name) {
+        ProductDto product = new ProductDto();
+        product.setName(name);
+        product.setStatus("AVAILABLE");
+        product.setPrice(new BigDecimal("150.00"));
+        product.setStock(20);
+        product.setCategoryName("Groceries");
+        product.setSupplierName("Mumias");
+        return product;
+    }
+}
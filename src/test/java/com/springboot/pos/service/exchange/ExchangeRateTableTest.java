@@ -0,0 +1,68 @@
+package com.springboot.pos.service.exchange;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExchangeRateTableTest {
+
+    private final ExchangeRateTable table = ExchangeRateTable.build(List.of(
+            new ExchangeRateQuote("USD", "KES", new BigDecimal("129.50")),
+            new ExchangeRateQuote("KES", "UGX", new BigDecimal("28.40")),
+            new ExchangeRateQuote("EUR", "USD", new BigDecimal("1.08")),
+            new ExchangeRateQuote("EUR", "GBP", new BigDecimal("0.85"))
+    ), "KES");
+
+    @Test
+    void usesDirectQuotesAsGiven() {
+        assertThat(table.rate("USD", "KES")).isEqualByComparingTo("129.50");
+        assertThat(table.rate("EUR", "USD")).isEqualByComparingTo("1.08");
+    }
+
+    @Test
+    void invertsQuotesInTheOtherDirection() {
+        assertThat(table.rate("KES", "USD").multiply(new BigDecimal("129.50")))
+                .isCloseTo(BigDecimal.ONE, within("0.0000000001"));
+    }
+
+    @Test
+    void triangulatesThroughThePivot() {
+        // USD -> KES -> UGX
+        assertThat(table.rate("USD", "UGX")).isEqualByComparingTo("3677.800");
+        // UGX -> KES -> USD
+        assertThat(table.rate("UGX", "USD").multiply(new BigDecimal("3677.8")))
+                .isCloseTo(BigDecimal.ONE, within("0.0000000001"));
+    }
+
+    @Test
+    void pairsWithoutAPathToThePivotAreNotConvertible() {
+        // EUR and GBP are only quoted against USD and each other, never against KES
+        assertThat(table.rate("EUR", "KES")).isNull();
+        assertThat(table.rate("GBP", "KES")).isNull();
+        assertThat(table.rate("EUR", "GBP")).isEqualByComparingTo("0.85");
+        assertThat(table.rate("KES", "JPY")).isNull();
+    }
+
+    @Test
+    void sameCurrencyIsOne() {
+        assertThat(table.rate("UGX", "UGX")).isEqualByComparingTo("1");
+        assertThat(table.currencyCount()).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsNonPositiveRates() {
+        List<ExchangeRateQuote> quotes = List.of(new ExchangeRateQuote("USD", "KES", BigDecimal.ZERO));
+
+        assertThatThrownBy(() -> ExchangeRateTable.build(quotes, "KES"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Offset<BigDecimal> within(String offset) {
+        return Offset.offset(new BigDecimal(offset));
+    }
+}
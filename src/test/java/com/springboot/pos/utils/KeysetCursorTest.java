@@ -0,0 +1,101 @@
+package com.springboot.pos.utils;
+
+import com.springboot.pos.exception.PosApiException;
+import com.springboot.pos.model.Sale;
+import com.springboot.pos.payload.CursorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    private final Sort byDate = KeysetCursor.sort(Sale.class, "saleDate", "desc");
+
+    @Test
+    void sortBreaksTiesOnId() {
+        assertThat(byDate).containsExactly(Sort.Order.desc("saleDate"), Sort.Order.desc("id"));
+        assertThat(KeysetCursor.sort(Sale.class, "id", "asc")).containsExactly(Sort.Order.asc("id"));
+    }
+
+    @Test
+    void rejectsUnsortableProperties() {
+        assertBadRequest(() -> KeysetCursor.sort(Sale.class, "customer", "asc"));
+        assertBadRequest(() -> KeysetCursor.sort(Sale.class, "nope", "asc"));
+    }
+
+    @Test
+    void rejectsLimitsOutOfRange() {
+        assertThat(KeysetCursor.limit(AppConstants.MAX_CURSOR_LIMIT).max()).isEqualTo(AppConstants.MAX_CURSOR_LIMIT);
+        assertBadRequest(() -> KeysetCursor.limit(0));
+        assertBadRequest(() -> KeysetCursor.limit(AppConstants.MAX_CURSOR_LIMIT + 1));
+    }
+
+    @Test
+    void missingCursorStartsAtTheFirstRow() {
+        ScrollPosition position = KeysetCursor.decode(null, Sale.class, byDate);
+
+        assertThat(position.isInitial()).isTrue();
+    }
+
+    @Test
+    void nextCursorDecodesToTheLastRowOfThePage() {
+        LocalDateTime lastDate = LocalDateTime.of(2026, 1, 31, 14, 0, 5);
+        List<Sale> sales = List.of(sale(7L, lastDate.plusMinutes(5)), sale(3L, lastDate));
+        Window<Sale> window = Window.from(sales, i -> ScrollPosition.forward(
+                Map.of("saleDate", sales.get(i).getSaleDate(), "id", sales.get(i).getId())), true);
+
+        CursorResponse<Long> response = KeysetCursor.toResponse(window, 2, Sale::getId);
+        ScrollPosition next = KeysetCursor.decode(response.getNextCursor(), Sale.class, byDate);
+
+        assertThat(response.getContent()).containsExactly(7L, 3L);
+        assertThat(response.isLast()).isFalse();
+        assertThat(((KeysetScrollPosition) next).getKeys())
+                .isEqualTo(Map.of("saleDate", lastDate, "id", 3L));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        Window<Sale> window = Window.from(List.of(sale(1L, LocalDateTime.now())),
+                i -> ScrollPosition.forward(Map.of("id", 1L)), false);
+
+        CursorResponse<Long> response = KeysetCursor.toResponse(window, 10, Sale::getId);
+
+        assertThat(response.getNextCursor()).isNull();
+        assertThat(response.isLast()).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedOrMismatchedCursors() {
+        List<Sale> sales = List.of(sale(3L, LocalDateTime.now()));
+        Window<Sale> window = Window.from(sales, i -> ScrollPosition.forward(
+                Map.of("saleDate", sales.get(i).getSaleDate(), "id", sales.get(i).getId())), true);
+        String cursor = KeysetCursor.toResponse(window, 1, Sale::getId).getNextCursor();
+
+        assertBadRequest(() -> KeysetCursor.decode("not-a-cursor", Sale.class, byDate));
+        assertBadRequest(() -> KeysetCursor.decode(cursor, Sale.class, KeysetCursor.sort(Sale.class, "id", "asc")));
+    }
+
+    private static Sale sale(long id, LocalDateTime saleDate) {
+        Sale sale = new Sale();
+        sale.setId(id);
+        sale.setSaleDate(saleDate);
+        return sale;
+    }
+
+    private static void assertBadRequest(Runnable call) {
+        assertThatThrownBy(call::run)
+                .isInstanceOf(PosApiException.class)
+                .extracting(e -> ((PosApiException) e).getStatus())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,85 @@
+package com.springboot.pos.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedAllotmentTest {
+
+    private final StripedAllotment allotment = new StripedAllotment(4);
+
+    @Test
+    void takesAreAllOrNothing() {
+        allotment.add(10);
+
+        assertThat(allotment.tryTake(4)).isTrue();
+        assertThat(allotment.sum()).isEqualTo(6);
+        assertThat(allotment.tryTake(7)).isFalse();
+        assertThat(allotment.sum()).isEqualTo(6);
+        assertThat(allotment.tryTake(6)).isTrue();
+        assertThat(allotment.sum()).isZero();
+    }
+
+    @Test
+    void ignoresEmptyAddsAndTakes() {
+        allotment.add(0);
+        allotment.add(-3);
+
+        assertThat(allotment.sum()).isZero();
+        assertThat(allotment.tryTake(0)).isTrue();
+    }
+
+    @Test
+    void takesUnitsAddedOnOtherThreads() throws Exception {
+        Thread adder = new Thread(() -> allotment.add(5));
+        adder.start();
+        adder.join();
+        allotment.add(3);
+
+        assertThat(allotment.tryTake(8)).isTrue();
+        assertThat(allotment.sum()).isZero();
+    }
+
+    @Test
+    void drainTakesUpToTheGivenAmount() {
+        allotment.add(10);
+
+        assertThat(allotment.drain(4)).isEqualTo(4);
+        assertThat(allotment.drain(100)).isEqualTo(6);
+        assertThat(allotment.drain(100)).isZero();
+    }
+
+    @Test
+    void concurrentTakersNeverOverdraw() throws Exception {
+        allotment.add(10_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> takers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                takers.add(pool.submit(() -> {
+                    int taken = 0;
+                    while (allotment.tryTake(3)) {
+                        taken += 3;
+                    }
+                    return taken;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> taker : takers) {
+                total += taker.get(10, TimeUnit.SECONDS);
+            }
+
+            // Failed takes put back what they grabbed, so no unit is lost or taken twice
+            assertThat(total + allotment.sum()).isEqualTo(10_000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.springboot.pos.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    // 8 slots of 100 ms: one turn of the wheel is 800 ms
+    private final TimerWheel<String> wheel = new TimerWheel<>(8, 100, 0);
+
+    @Test
+    void expiresKeysOnceTheirTickIsReached() {
+        wheel.schedule("a", 250);
+
+        assertThat(wheel.advance(199)).isEmpty();
+        assertThat(wheel.advance(250)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledKeysNeverExpire() {
+        wheel.schedule("a", 200);
+
+        assertThat(wheel.cancel("a")).isTrue();
+        assertThat(wheel.cancel("a")).isFalse();
+        assertThat(wheel.advance(1000)).isEmpty();
+    }
+
+    @Test
+    void reschedulingReplacesTheEarlierDeadline() {
+        wheel.schedule("a", 200);
+        wheel.schedule("a", 500);
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(300)).isEmpty();
+        assertThat(wheel.advance(500)).containsExactly("a");
+    }
+
+    @Test
+    void deadlinesBeyondOneTurnWaitForTheirTurn() {
+        // Tick 10 shares a slot with tick 2
+        wheel.schedule("late", 1000);
+        wheel.schedule("early", 200);
+
+        assertThat(wheel.advance(200)).containsExactly("early");
+        assertThat(wheel.advance(900)).isEmpty();
+        assertThat(wheel.advance(1000)).containsExactly("late");
+    }
+
+    @Test
+    void longPauseExpiresEverythingDueInOneAdvance() {
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 300);
+        wheel.schedule("c", 790);
+        wheel.schedule("d", 10_000);
+
+        assertThat(wheel.advance(5000)).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(10_000)).containsExactly("d");
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextTick() {
+        wheel.advance(1000);
+        wheel.schedule("a", 0);
+
+        assertThat(wheel.advance(1000)).isEmpty();
+        assertThat(wheel.advance(1100)).containsExactly("a");
+    }
+}